@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.feed.write-behind")
+public class FeedWriteBehindProperties {
+    private boolean enabled = true;
+    private int capacity = 10000;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(20);
+    private Policy policy = Policy.SYNC;
+
+    public enum Policy {
+        BLOCK,
+        DROP,
+        SYNC
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.pagination")
+public class PaginationProperties {
+    private int defaultLimit = 100;
+    private int maxLimit = 1000;
+
+    public int normalizeLimit(Integer limit) {
+        if (Objects.isNull(limit) || limit <= 0) {
+            return defaultLimit;
+        }
+
+        return Math.min(limit, maxLimit);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+@UtilityClass
+public class CursorPageResponse {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static <T> ResponseEntity<Collection<T>> of(Collection<T> page, int limit, Function<T, ?> cursorGetter) {
+        if (page.size() < limit) {
+            return ResponseEntity.ok(page);
+        }
+
+        T last = page.stream().skip(page.size() - 1L).findFirst().orElseThrow();
+
+        return withCursor(page, cursorGetter.apply(last));
+    }
+
+    public static <T> ResponseEntity<Collection<T>> ofPrevious(Collection<T> page, int limit,
+                                                               Function<T, ?> cursorGetter) {
+        if (page.size() < limit) {
+            return ResponseEntity.ok(page);
+        }
+
+        return withCursor(page, cursorGetter.apply(page.iterator().next()));
+    }
+
+    private static <T> ResponseEntity<Collection<T>> withCursor(Collection<T> page, Object cursor) {
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(cursor))
+                .body(page);
+    }
+}
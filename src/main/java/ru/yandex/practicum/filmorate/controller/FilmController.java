@@ -1,15 +1,27 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import ru.yandex.practicum.filmorate.configuration.PaginationProperties;
 import ru.yandex.practicum.filmorate.constants.SearchBy;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.SortBy;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Objects;
 import java.util.Set;
 
 @RestController
@@ -19,6 +31,11 @@ import java.util.Set;
 public class FilmController {
 
     private final FilmService filmService;
+    private final PaginationProperties paginationProperties;
+    private final ObjectMapper objectMapper;
+
+    @Value("${filmorate.films.export-timeout:10m}")
+    private Duration exportTimeout;
 
     @PostMapping
     public Film createFilm(@Valid @RequestBody Film film) {
@@ -28,11 +45,47 @@ public class FilmController {
     }
 
     @GetMapping
-    public Collection<Film> getFilms() {
-        return filmService.getFilms();
+    public ResponseEntity<Collection<Film>> getFilms(
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) Integer after
+    ) {
+        if (Objects.isNull(limit) && Objects.isNull(after)) {
+            return ResponseEntity.ok(filmService.getFilms());
+        }
+
+        int pageLimit = paginationProperties.normalizeLimit(limit);
+
+        return CursorPageResponse.of(filmService.getFilms(after, pageLimit), pageLimit, Film::getId);
     }
 
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> streamFilms(HttpServletResponse response) {
+        log.debug("Запрошена потоковая выгрузка всех фильмов");
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            OutputStream outputStream = response.getOutputStream();
+
+            filmService.streamFilms(films -> {
+                try {
+                    for (Film film : films) {
+                        outputStream.write(objectMapper.writeValueAsBytes(film));
+                        outputStream.write('\n');
+                    }
+
+                    outputStream.flush();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            return null;
+        });
+    }
+
     @GetMapping("/{id}")
     public Film getFilmById(@PathVariable("id") Integer id) {
         return filmService.getFilmById(id);
@@ -2,12 +2,16 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.configuration.PaginationProperties;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewCursor;
 
 import javax.validation.Valid;
-import java.util.List;
+import java.util.Collection;
+import java.util.Objects;
 
 @Slf4j
 @RestController
@@ -15,10 +19,12 @@ import java.util.List;
 public class ReviewController {
 
     ReviewService reviewService;
+    PaginationProperties paginationProperties;
 
     @Autowired
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, PaginationProperties paginationProperties) {
         this.reviewService = reviewService;
+        this.paginationProperties = paginationProperties;
     }
 
     @PostMapping
@@ -37,11 +43,15 @@ public class ReviewController {
     }
 
     @GetMapping
-    public List<Review> getAll(
+    public ResponseEntity<Collection<Review>> getAll(
             @RequestParam(name = "filmId", defaultValue = "-1", required = false) Integer filmId,
-            @RequestParam(name = "count", defaultValue = "10", required = false) Integer count
+            @RequestParam(name = "count", defaultValue = "10", required = false) Integer count,
+            @RequestParam(name = "after", required = false) String after
     ) {
-        return reviewService.getAll(filmId, count);
+        int pageLimit = paginationProperties.normalizeLimit(count);
+        ReviewCursor cursor = Objects.isNull(after) ? null : ReviewCursor.parse(after);
+
+        return CursorPageResponse.of(reviewService.getAll(filmId, pageLimit, cursor), pageLimit, ReviewCursor::of);
     }
 
     @GetMapping("/{id}")
@@ -2,7 +2,11 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.configuration.PaginationProperties;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
@@ -13,6 +17,7 @@ import ru.yandex.practicum.filmorate.service.UserService;
 import javax.validation.Valid;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @Slf4j
@@ -23,6 +28,7 @@ public class UserController {
     private final UserService userService;
     private final FilmService filmService;
     private final EventService eventService;
+    private final PaginationProperties paginationProperties;
 
     @PostMapping
     public User createUser(@Valid @RequestBody User user) {
@@ -30,8 +36,17 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<Collection<User>> getAllUsers(
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) Integer after
+    ) {
+        if (Objects.isNull(limit) && Objects.isNull(after)) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+
+        int pageLimit = paginationProperties.normalizeLimit(limit);
+
+        return CursorPageResponse.of(userService.getAllUsers(after, pageLimit), pageLimit, User::getId);
     }
 
     @GetMapping("/{id}")
@@ -44,6 +59,12 @@ public class UserController {
         return userService.getUserFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> getFriendSuggestions(@PathVariable("id") Integer id,
+                                                 @RequestParam(name = "limit", defaultValue = "10") Integer limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getCommonFriends(@PathVariable("id") Integer id, @PathVariable("otherId") Integer otherId) {
         return userService.getCommonFriends(id, otherId);
@@ -55,8 +76,32 @@ public class UserController {
     }
 
     @GetMapping("/{id}/feed")
-    public List<Event> getFeed(@PathVariable int id) {
-        return eventService.getFeed(id);
+    public ResponseEntity<Collection<Event>> getFeed(
+            @PathVariable int id,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "beforeEventId", required = false) Integer beforeEventId,
+            @RequestParam(name = "full", defaultValue = "false") boolean full
+    ) {
+        if (full) {
+            return ResponseEntity.ok(eventService.getFeed(id));
+        }
+
+        int pageLimit = paginationProperties.normalizeLimit(limit);
+
+        return CursorPageResponse.ofPrevious(eventService.getFeed(id, beforeEventId, pageLimit), pageLimit,
+                Event::getEventId);
+    }
+
+    @GetMapping(path = "/{id}/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(@PathVariable int id,
+                                 @RequestHeader(name = "Last-Event-ID", required = false) Integer lastEventId) {
+        return eventService.streamFeed(id, lastEventId);
+    }
+
+    @GetMapping("/{id}/timeline")
+    public Collection<Event> getTimeline(@PathVariable int id,
+                                         @RequestParam(name = "limit", required = false) Integer limit) {
+        return eventService.getTimeline(id, paginationProperties.normalizeLimit(limit));
     }
 
     @PutMapping
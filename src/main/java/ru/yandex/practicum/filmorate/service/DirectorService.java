@@ -6,6 +6,8 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.filmDirector.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
 
 import java.util.Collection;
 
@@ -15,14 +17,24 @@ public class DirectorService {
     public static final String NOT_FOUND = "Режиссер с id: '%d' не найден";
 
     private final DirectorStorage directorStorage;
+    private final FilmSearchIndex filmSearchIndex;
+    private final DirectorFilmIndex directorFilmIndex;
 
     public Director createDirector(Director director) {
-        return directorStorage.createDirector(director);
+        Director createdDirector = directorStorage.createDirector(director);
+
+        filmSearchIndex.putDirector(createdDirector);
+
+        return createdDirector;
     }
 
     public Director updateDirector(Director director) {
-        return directorStorage.updateDirector(director).orElseThrow(() -> new NotFoundException(String.format(
-                NOT_FOUND, director.getId())));
+        Director updatedDirector = directorStorage.updateDirector(director).orElseThrow(() ->
+                new NotFoundException(String.format(NOT_FOUND, director.getId())));
+
+        filmSearchIndex.putDirector(updatedDirector);
+
+        return updatedDirector;
     }
 
     public Director getDirectorById(Integer id) {
@@ -39,6 +51,9 @@ public class DirectorService {
             throw new NotFoundException(String.format(
                     NOT_FOUND, id));
         }
+
+        filmSearchIndex.removeDirector(id);
+        directorFilmIndex.removeDirector(id);
     }
 
 }
@@ -2,15 +2,19 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.yandex.practicum.filmorate.model.EventOperation;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.event.EventWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.timeline.FriendsTimeline;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -18,13 +22,35 @@ import java.util.Optional;
 public class EventService {
     final private EventStorage eventStorage;
     final private UserStorage userStorage;
+    final private EventWriteBehindQueue eventWriteBehindQueue;
+    final private FriendsTimeline friendsTimeline;
+    final private FeedStreamService feedStreamService;
 
     public List<Event> getFeed(int userId) {
-        Optional.ofNullable(userStorage.getUserById(userId))
-                .orElseThrow(() -> new NotFoundException("Пользователя с id=" + userId + " не существует"));
+        checkUserExists(userId);
+        eventWriteBehindQueue.flushUser(userId);
         return eventStorage.getFeed(userId);
     }
 
+    public List<Event> getFeed(int userId, Integer beforeEventId, int limit) {
+        checkUserExists(userId);
+        eventWriteBehindQueue.flushUser(userId);
+        return eventStorage.getFeedPage(userId, Objects.isNull(beforeEventId) ? Integer.MAX_VALUE : beforeEventId,
+                limit);
+    }
+
+    public SseEmitter streamFeed(int userId, Integer lastEventId) {
+        checkUserExists(userId);
+        eventWriteBehindQueue.flushUser(userId);
+        return feedStreamService.subscribe(userId, lastEventId);
+    }
+
+    // чужие события отстают не больше чем на flush-interval, поэтому очередь не сбрасывается
+    public List<Event> getTimeline(int userId, int limit) {
+        checkUserExists(userId);
+        return friendsTimeline.getTimeline(userId, limit);
+    }
+
     public void createEvent(int userId, EventType eventType, EventOperation eventOperation, int entityId) {
         Event event = Event.builder()
                 .timestamp(Instant.now().toEpochMilli())
@@ -34,6 +60,11 @@ public class EventService {
                 .entityId(entityId)
                 .build();
 
-        eventStorage.createEvent(event);
+        eventWriteBehindQueue.enqueue(event);
+    }
+
+    private void checkUserExists(int userId) {
+        Optional.ofNullable(userStorage.getUserById(userId))
+                .orElseThrow(() -> new NotFoundException("Пользователя с id=" + userId + " не существует"));
     }
 }
@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.event.FeedEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class FeedStreamService implements FeedEventListener {
+
+    private static final int REPLAY_BATCH_SIZE = 500;
+
+    private final EventStorage eventStorage;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int replayLimit;
+    // поток записи ленты только кладёт события в очередь подписчика, отправляет отдельный пул
+    private final ExecutorService senders;
+    private final Map<Integer, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections;
+    private final Counter overflows;
+
+    public FeedStreamService(EventStorage eventStorage,
+                             @Value("${filmorate.feed.stream.timeout:30m}") Duration timeout,
+                             @Value("${filmorate.feed.stream.buffer-size:1000}") int bufferSize,
+                             @Value("${filmorate.feed.stream.replay-limit:1000}") int replayLimit,
+                             @Value("${filmorate.feed.stream.senders:2}") int senders,
+                             MeterRegistry meterRegistry) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.eventStorage = eventStorage;
+        this.timeoutMillis = timeout.toMillis();
+        this.bufferSize = bufferSize;
+        this.replayLimit = replayLimit;
+        this.senders = Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "feed-stream-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.connections = meterRegistry.gauge("filmorate.feed.stream.connections", Tags.empty(),
+                new AtomicInteger());
+        this.overflows = meterRegistry.counter("filmorate.feed.stream.overflows");
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+    }
+
+    public SseEmitter subscribe(int userId, Integer lastEventId) {
+        Subscription subscription = new Subscription(userId, new SseEmitter(timeoutMillis), bufferSize);
+
+        subscription.emitter.onCompletion(() -> unsubscribe(subscription));
+        subscription.emitter.onTimeout(subscription.emitter::complete);
+        subscription.emitter.onError(e -> unsubscribe(subscription));
+
+        subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        connections.incrementAndGet();
+
+        if (Objects.nonNull(lastEventId) && !replay(subscription, lastEventId)) {
+            return subscription.emitter;
+        }
+
+        subscription.replaying = false;
+        scheduleDrain(subscription);
+
+        return subscription.emitter;
+    }
+
+    @Override
+    public void onEventsRecorded(List<Event> events) {
+        for (Event event : events) {
+            Set<Subscription> userSubscriptions = subscriptions.get(event.getUserId());
+
+            if (Objects.isNull(userSubscriptions)) {
+                continue;
+            }
+
+            for (Subscription subscription : userSubscriptions) {
+                if (subscription.pending.offer(event)) {
+                    scheduleDrain(subscription);
+                }
+                else {
+                    log.debug("Очередь потока ленты пользователя с id = {} переполнена", subscription.userId);
+                    overflows.increment();
+                    close(subscription);
+                }
+            }
+        }
+    }
+
+    // false - поток закрыт, клиент переподключится сам
+    private boolean replay(Subscription subscription, int lastEventId) {
+        List<Event> events;
+        int afterEventId = lastEventId;
+        int replayed = 0;
+        int batchSize;
+
+        do {
+            batchSize = Math.min(REPLAY_BATCH_SIZE, replayLimit - replayed);
+            events = eventStorage.getFeedAfter(subscription.userId, afterEventId, batchSize);
+
+            for (Event event : events) {
+                if (!send(subscription, event)) {
+                    return false;
+                }
+
+                afterEventId = event.getEventId();
+                replayed++;
+            }
+        } while (events.size() == batchSize && replayed < replayLimit);
+
+        if (replayed == replayLimit
+                && !eventStorage.getFeedAfter(subscription.userId, afterEventId, 1).isEmpty()) {
+            close(subscription);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void scheduleDrain(Subscription subscription) {
+        if (subscription.replaying || subscription.pending.isEmpty()
+                || !subscription.draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            senders.execute(() -> drain(subscription));
+        }
+        catch (RejectedExecutionException e) {
+            subscription.draining.set(false);
+            close(subscription);
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        Event event;
+
+        while ((event = subscription.pending.poll()) != null) {
+            if (!send(subscription, event)) {
+                subscription.pending.clear();
+                break;
+            }
+        }
+
+        subscription.draining.set(false);
+        scheduleDrain(subscription);
+    }
+
+    private boolean send(Subscription subscription, Event event) {
+        if (subscription.closed) {
+            return false;
+        }
+
+        if (event.getEventId() <= subscription.lastSentEventId) {
+            return true;
+        }
+
+        try {
+            subscription.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getEventId()))
+                    .data(event, MediaType.APPLICATION_JSON));
+            subscription.lastSentEventId = event.getEventId();
+
+            return true;
+        }
+        catch (IOException | IllegalStateException e) {
+            log.debug("Поток ленты пользователя с id = {} закрыт: {}", subscription.userId, e.getMessage());
+            unsubscribe(subscription);
+            subscription.emitter.completeWithError(e);
+
+            return false;
+        }
+    }
+
+    // complete ждёт монитор эмиттера, пока идёт отправка, поэтому вызывается из пула отправки
+    private void close(Subscription subscription) {
+        unsubscribe(subscription);
+        subscription.pending.clear();
+
+        try {
+            senders.execute(subscription.emitter::complete);
+        }
+        catch (RejectedExecutionException e) {
+            log.debug("Пул отправки ленты остановлен, поток пользователя с id = {} не завершён",
+                    subscription.userId);
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        Set<Subscription> userSubscriptions = subscriptions.get(subscription.userId);
+
+        subscription.closed = true;
+
+        if (Objects.nonNull(userSubscriptions) && userSubscriptions.remove(subscription)) {
+            connections.decrementAndGet();
+            subscriptions.computeIfPresent(subscription.userId, (id, set) -> set.isEmpty() ? null : set);
+        }
+    }
+
+    private static class Subscription {
+
+        private final int userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean replaying = true;
+        private volatile boolean closed;
+        private volatile int lastSentEventId;
+
+        private Subscription(int userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
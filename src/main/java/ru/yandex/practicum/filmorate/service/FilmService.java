@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.EventOperation;
 import ru.yandex.practicum.filmorate.model.EventType;
@@ -11,12 +12,20 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.SortBy;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmDirector.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.popularity.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.validation.FilmValidator;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,9 +38,28 @@ public class FilmService {
     private final UserService userService;
     private final LikeService likeService;
     private final EventService eventService;
+    private final FilmPopularityIndex filmPopularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final DirectorFilmIndex directorFilmIndex;
+    private final LikeMatrix likeMatrix;
+    private final RecommendationStorage recommendationStorage;
+
+    @Value("${filmorate.films.export-chunk-size:500}")
+    private int exportChunkSize;
+
+    @Value("${filmorate.recommendations.neighbours:20}")
+    private int recommendationNeighbours;
+
+    @Value("${filmorate.recommendations.limit:100}")
+    private int recommendationLimit;
 
     public Film createFilm(Film film) {
-        return filmStorage.createFilm(film);
+        Film createdFilm = filmStorage.createFilm(film);
+
+        filmPopularityIndex.putFilm(createdFilm);
+        filmSearchIndex.putFilm(createdFilm);
+
+        return createdFilm;
     }
 
     public Film updateFilm(Film film) {
@@ -39,15 +67,31 @@ public class FilmService {
 
         checkFilmIsNotFound(filmFromBD, film.getId());
 
-        return filmStorage.updateFilm(film);
+        Film updatedFilm = filmStorage.updateFilm(film);
+
+        filmPopularityIndex.putFilm(updatedFilm);
+        filmSearchIndex.putFilm(updatedFilm);
+        directorFilmIndex.putFilm(updatedFilm);
+
+        return updatedFilm;
     }
 
     public Collection<Film> getFilms() {
         return filmStorage.getAllFilms();
     }
 
+    public void streamFilms(Consumer<Collection<Film>> chunkConsumer) {
+        filmStorage.streamAllFilms(exportChunkSize, chunkConsumer);
+    }
+
+    public Collection<Film> getFilms(Integer afterId, int limit) {
+        return filmStorage.getFilmsPage(Objects.isNull(afterId) ? 0 : afterId, limit);
+    }
+
     public Collection<Film> getDirectorFilms(Integer directorId, SortBy sortBy) {
-        Collection<Film> films = filmStorage.getDirectorFilms(directorId, sortBy);
+        Collection<Film> films = directorFilmIndex.getFilmIds(directorId, sortBy)
+                .<Collection<Film>>map(filmStorage::getFilmsByIds)
+                .orElseGet(() -> filmStorage.getDirectorFilms(directorId, sortBy));
 
         if (films.isEmpty()) {
             throw new NotFoundException(String.format(DirectorService.NOT_FOUND, directorId));
@@ -57,7 +101,15 @@ public class FilmService {
     }
 
     public Collection<Film> getRecommendations(Integer userId) {
-        return filmStorage.getUserRecommendations(userId);
+        List<Integer> precomputedFilmIds = recommendationStorage.getRecommendedFilmIds(userId);
+
+        if (!precomputedFilmIds.isEmpty()) {
+            return filmStorage.getFilmsByIds(precomputedFilmIds);
+        }
+
+        return likeMatrix.getRecommendedFilmIds(userId, recommendationNeighbours, recommendationLimit)
+                .<Collection<Film>>map(filmStorage::getFilmsByIds)
+                .orElseGet(() -> filmStorage.getUserRecommendations(userId));
     }
 
     public void addLikeToFilm(Integer filmId, Integer userId) {
@@ -73,7 +125,9 @@ public class FilmService {
     }
 
     public Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
-        return filmStorage.getPopularFilms(count, genreId, year);
+        return filmPopularityIndex.getPopularFilmIds(count, genreId, year)
+                .<Collection<Film>>map(filmStorage::getFilmsByIds)
+                .orElseGet(() -> filmStorage.getPopularFilms(count, genreId, year));
     }
 
     public Film getFilmById(Integer id) {
@@ -88,10 +142,17 @@ public class FilmService {
         if (!filmStorage.deleteFilmById(id)) {
             throw new NotFoundException(String.format(NOT_FOUND_FILM, id));
         }
+
+        filmPopularityIndex.removeFilm(id);
+        filmSearchIndex.removeFilm(id);
+        directorFilmIndex.removeFilm(id);
+        likeMatrix.removeFilm(id);
     }
 
     public Collection<Film> getCommonFilms(Integer userId, Integer friendId) {
-        return filmStorage.getCommonFilms(userId, friendId);
+        return likeMatrix.getCommonFilmIds(userId, friendId)
+                .<Collection<Film>>map(filmStorage::getFilmsByIds)
+                .orElseGet(() -> filmStorage.getCommonFilms(userId, friendId));
     }
 
     private void checkFilmIsNotFound(Film film, Integer id) {
@@ -106,7 +167,9 @@ public class FilmService {
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
         log.trace("Отфильтрованный список полей: {}", searchFields);
-        Set<Film> foundFilms = filmStorage.search(query, searchFields);
+        Set<Film> foundFilms = filmSearchIndex.search(query, searchFields)
+                .<Set<Film>>map(filmIds -> new HashSet<>(filmStorage.getFilmsByIds(filmIds)))
+                .orElseGet(() -> filmStorage.search(query, searchFields));
         log.debug("Найдены фильмы, подходящие под условия: {}", foundFilms);
         return foundFilms;
     }
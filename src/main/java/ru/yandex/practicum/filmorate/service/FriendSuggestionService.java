@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntCounter;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+public class FriendSuggestionService {
+
+    private static final int GENERATION_STRIPES = 1024;
+    private final FriendshipStorage friendshipStorage;
+    private final UserStorage userStorage;
+    private final int maxFanOut;
+    private final int maxLimit;
+    private final int cacheMaxSize;
+    private final long cacheTtlMillis;
+    private final Map<Integer, CachedSuggestions> suggestionsCache;
+    // расчёт идёт вне блокировки, и результат отбрасывается, если полосу пользователя успели инвалидировать
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    public FriendSuggestionService(FriendshipStorage friendshipStorage,
+                                   UserStorage userStorage,
+                                   @Value("${filmorate.friends.suggestions.max-fan-out:1000}") int maxFanOut,
+                                   @Value("${filmorate.friends.suggestions.max-limit:100}") int maxLimit,
+                                   @Value("${filmorate.friends.suggestions.cache-max-size:10000}") int cacheMaxSize,
+                                   @Value("${filmorate.friends.suggestions.cache-ttl:10m}") Duration cacheTtl) {
+        this.friendshipStorage = friendshipStorage;
+        this.userStorage = userStorage;
+        this.maxFanOut = maxFanOut;
+        this.maxLimit = maxLimit;
+        this.cacheMaxSize = cacheMaxSize;
+        this.cacheTtlMillis = cacheTtl.toMillis();
+        this.suggestionsCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedSuggestions> eldest) {
+                return size() > FriendSuggestionService.this.cacheMaxSize;
+            }
+        };
+    }
+
+    public List<User> getSuggestions(Integer userId, int limit) {
+        int[] suggestedIds = getCachedSuggestions(userId);
+
+        if (Objects.isNull(suggestedIds)) {
+            long generation = getGeneration(userId);
+
+            suggestedIds = computeSuggestions(userId);
+            putSuggestions(userId, suggestedIds, generation);
+        }
+
+        List<Integer> ids = IntStream.of(suggestedIds)
+                .limit(Math.max(0, Math.min(limit, maxLimit)))
+                .boxed()
+                .collect(Collectors.toList());
+        Map<Integer, User> usersById = userStorage.getUsersByIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+
+        return ids.stream().map(usersById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    public void invalidate(Integer userId) {
+        int[] followerIds = friendshipStorage.getFollowerIds(userId);
+
+        synchronized (suggestionsCache) {
+            invalidateCached(userId);
+
+            for (int followerId : followerIds) {
+                invalidateCached(followerId);
+            }
+        }
+    }
+
+    private int[] getCachedSuggestions(int userId) {
+        synchronized (suggestionsCache) {
+            CachedSuggestions cached = suggestionsCache.get(userId);
+
+            if (Objects.isNull(cached) || cached.expiresAt < System.currentTimeMillis()) {
+                if (Objects.nonNull(cached)) {
+                    suggestionsCache.remove(userId);
+                }
+
+                return null;
+            }
+
+            return cached.suggestedIds;
+        }
+    }
+
+    private long getGeneration(int userId) {
+        synchronized (suggestionsCache) {
+            return generations[toStripe(userId)];
+        }
+    }
+
+    private void putSuggestions(int userId, int[] suggestedIds, long generation) {
+        synchronized (suggestionsCache) {
+            if (generations[toStripe(userId)] == generation) {
+                suggestionsCache.put(userId,
+                        new CachedSuggestions(suggestedIds, System.currentTimeMillis() + cacheTtlMillis));
+            }
+        }
+    }
+
+    private void invalidateCached(int userId) {
+        generations[toStripe(userId)]++;
+        suggestionsCache.remove(userId);
+    }
+
+    private static int toStripe(int userId) {
+        return userId & (GENERATION_STRIPES - 1);
+    }
+
+    private int[] computeSuggestions(int userId) {
+        int[] friendIds = friendshipStorage.getFriendIds(userId);
+        IntCounter mutualFriends = new IntCounter(friendIds.length * 8);
+
+        for (int friendId : friendIds) {
+            int[] friendsOfFriend = friendshipStorage.getFriendIds(friendId);
+
+            if (friendsOfFriend.length > maxFanOut) {
+                log.debug("Пропущен пользователь с id = {}: друзей {} больше лимита {}",
+                        friendId, friendsOfFriend.length, maxFanOut);
+                continue;
+            }
+
+            for (int candidateId : friendsOfFriend) {
+                if (candidateId != userId && !SortedIntArrays.contains(friendIds, candidateId)) {
+                    mutualFriends.increment(candidateId);
+                }
+            }
+        }
+
+        long[] ranked = new long[mutualFriends.size()];
+        int[] size = {0};
+
+        mutualFriends.forEach((candidateId, count) ->
+                ranked[size[0]++] = ((long) (Integer.MAX_VALUE - count) << 32) | candidateId);
+        Arrays.sort(ranked);
+
+        int[] suggestedIds = new int[Math.min(ranked.length, maxLimit)];
+
+        for (int i = 0; i < suggestedIds.length; i++) {
+            suggestedIds[i] = (int) ranked[i];
+        }
+
+        return suggestedIds;
+    }
+
+    private static class CachedSuggestions {
+        private final int[] suggestedIds;
+        private final long expiresAt;
+
+        CachedSuggestions(int[] suggestedIds, long expiresAt) {
+            this.suggestedIds = suggestedIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.validation.GenreValidator;
 
 import java.util.Collection;
@@ -14,10 +14,10 @@ import java.util.Collection;
 public class GenreService {
 
     private static final String NOT_FOUND_MESSAGE = "Жанра с id %s нет";
-    private final GenreStorage genreStorage;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     public Genre getGenreById(Integer id) {
-        Genre genre = genreStorage.getGenreById(id);
+        Genre genre = referenceDataRegistry.getGenre(id);
 
         checkGenreIsNotNull(genre, id);
 
@@ -25,11 +25,11 @@ public class GenreService {
     }
 
     public Collection<Genre> getAllGenres() {
-        return genreStorage.getAllGenres();
+        return referenceDataRegistry.getGenres();
     }
 
     private void checkGenreIsNotNull(Genre genre, Integer id) {
-        if (GenreValidator.isGenreNotFound(getAllGenres(), genre)) {
+        if (GenreValidator.isGenreNotFound(genre)) {
             throw new NotFoundException(String.format(NOT_FOUND_MESSAGE, id));
         }
     }
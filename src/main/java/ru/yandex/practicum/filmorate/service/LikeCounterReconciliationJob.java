@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCounterReconciliationJob {
+
+    private final LikeStorage likeStorage;
+
+    @Value("${filmorate.likes.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(cron = "${filmorate.likes.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        int fixed = likeStorage.reconcileLikeCounters();
+
+        log.info("Сверка счётчиков лайков завершена, исправлено фильмов: {}", fixed);
+    }
+}
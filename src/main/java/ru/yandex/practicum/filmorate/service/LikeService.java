@@ -2,19 +2,36 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.like.LikeListener;
 import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class LikeService {
 
     private final LikeStorage likeStorage;
+    private final List<LikeListener> likeListeners;
 
     public void addLikeToFilm(Integer filmId, Integer userId) {
-        likeStorage.addLikeToFilm(filmId, userId);
+        if (likeStorage.addLikeToFilm(filmId, userId)) {
+            likeListeners.forEach(listener -> listener.onLikeAdded(filmId, userId));
+        }
     }
 
     public void deleteLikeFromFilm(Integer filmId, Integer userId) {
-        likeStorage.deleteLikeFromFilm(filmId, userId);
+        if (likeStorage.deleteLikeFromFilm(filmId, userId)) {
+            likeListeners.forEach(listener -> listener.onLikeRemoved(filmId, userId));
+        }
+    }
+
+    public Collection<Integer> getUserLikedFilmIds(Integer userId) {
+        return likeStorage.getUserLikedFilmIds(userId);
+    }
+
+    public void onUserDeleted(Integer userId, Collection<Integer> likedFilmIds) {
+        likedFilmIds.forEach(filmId -> likeListeners.forEach(listener -> listener.onLikeRemoved(filmId, userId)));
     }
 }
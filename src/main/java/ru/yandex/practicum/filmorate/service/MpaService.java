@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.validation.MpaValidator;
 
 import java.util.Collection;
@@ -15,10 +15,10 @@ import java.util.Collection;
 public class MpaService {
 
     private static final String NOT_FOUND_MESSAGE = "MPA рейтинга с id %s нет";
-    private final MpaStorage mpaStorage;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     public Mpa getMapById(Integer id) {
-        Mpa mpa = mpaStorage.getMpaById(id);
+        Mpa mpa = referenceDataRegistry.getMpa(id);
 
         checkMpaIsNotNull(mpa, id);
 
@@ -26,11 +26,11 @@ public class MpaService {
     }
 
     public Collection<Mpa> getAllMpa() {
-        return mpaStorage.getAllMpa();
+        return referenceDataRegistry.getMpas();
     }
 
     private void checkMpaIsNotNull(Mpa mpa, Integer id) {
-        if (MpaValidator.isMpaNotFound(getAllMpa(), mpa)) {
+        if (MpaValidator.isMpaNotFound(mpa)) {
             throw new NotFoundException(String.format(NOT_FOUND_MESSAGE, id));
         }
     }
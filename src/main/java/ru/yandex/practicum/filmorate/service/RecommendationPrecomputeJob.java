@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationRange;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// выполненные диапазоны id отмечаются в БД, поэтому прерванный прогон продолжается с места остановки
+@Slf4j
+@Component
+public class RecommendationPrecomputeJob {
+
+    private final RecommendationStorage recommendationStorage;
+    private final LikeMatrix likeMatrix;
+    private final int parallelism;
+    private final int rangeSize;
+    private final int neighbours;
+    private final int limit;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger totalRanges = new AtomicInteger();
+    private final AtomicInteger completedRanges = new AtomicInteger();
+    private final Counter processedUsers;
+    private final Timer runTimer;
+
+    public RecommendationPrecomputeJob(RecommendationStorage recommendationStorage,
+                                       LikeMatrix likeMatrix,
+                                       @Value("${filmorate.recommendations.precompute-parallelism:4}") int parallelism,
+                                       @Value("${filmorate.recommendations.precompute-range-size:1000}") int rangeSize,
+                                       @Value("${filmorate.recommendations.neighbours:20}") int neighbours,
+                                       @Value("${filmorate.recommendations.limit:100}") int limit,
+                                       MeterRegistry meterRegistry) {
+        this.recommendationStorage = recommendationStorage;
+        this.likeMatrix = likeMatrix;
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.neighbours = neighbours;
+        this.limit = limit;
+        this.processedUsers = meterRegistry.counter("filmorate.recommendations.precompute.users");
+        this.runTimer = meterRegistry.timer("filmorate.recommendations.precompute.duration");
+        meterRegistry.gauge("filmorate.recommendations.precompute.ranges.total", totalRanges);
+        meterRegistry.gauge("filmorate.recommendations.precompute.ranges.completed", completedRanges);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        if (recommendationStorage.getUnfinishedRunId().isPresent()) {
+            log.info("Найден незавершённый прогон предрасчёта рекомендаций, продолжаем");
+            CompletableFuture.runAsync(this::precompute);
+        }
+    }
+
+    @Scheduled(cron = "${filmorate.recommendations.precompute-cron:0 30 3 * * *}")
+    public void precompute() {
+        if (!likeMatrix.isLoaded()) {
+            log.warn("Матрица лайков ещё не построена, предрасчёт рекомендаций пропущен");
+            return;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Предрасчёт рекомендаций уже выполняется");
+            return;
+        }
+
+        try {
+            runTimer.record(this::run);
+        }
+        finally {
+            running.set(false);
+        }
+    }
+
+    private void run() {
+        int runId = recommendationStorage.getUnfinishedRunId()
+                .orElseGet(() -> recommendationStorage.createRun(rangeSize));
+        List<RecommendationRange> ranges = recommendationStorage.getPendingRanges(runId);
+        int total = recommendationStorage.getRangesCount(runId);
+
+        totalRanges.set(total);
+        completedRanges.set(total - ranges.size());
+        log.info("Предрасчёт рекомендаций, прогон {}: осталось диапазонов {} из {}", runId, ranges.size(), total);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(ranges.size());
+
+            ranges.forEach(range -> futures.add(executor.submit(() -> precomputeRange(runId, range))));
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            recommendationStorage.finishRun(runId);
+            log.info("Предрасчёт рекомендаций, прогон {} завершён", runId);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            log.error("Предрасчёт рекомендаций, прогон {} прерван", runId, e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void precomputeRange(int runId, RecommendationRange range) {
+        Instant computedAt = Instant.now();
+        Map<Integer, List<Integer>> filmIdsByUser = new LinkedHashMap<>();
+
+        for (Integer userId : recommendationStorage.getLikingUserIds(range)) {
+            likeMatrix.getRecommendedFilmIds(userId, neighbours, limit)
+                    .filter(filmIds -> !filmIds.isEmpty())
+                    .ifPresent(filmIds -> filmIdsByUser.put(userId, filmIds));
+            processedUsers.increment();
+        }
+
+        recommendationStorage.completeRange(runId, range, computedAt, filmIdsByUser);
+        completedRanges.incrementAndGet();
+    }
+}
@@ -9,12 +9,12 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ReviewValidationException;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewCursor;
 import ru.yandex.practicum.filmorate.storage.filmReview.ReviewStorage;
 import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewRatingStorage;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -32,22 +32,16 @@ public class ReviewService {
         return checkIfReviewExists(id);
     }
 
-    public List<Review> getAll(Integer filmId, Integer count) {
+    public List<Review> getAll(Integer filmId, Integer count, ReviewCursor after) {
         List<Review> reviews;
         if (filmId == -1) {
-            log.debug("Запрошены все отзывы");
-            reviews = reviewStorage.getAll();
+            log.debug("Запрошены отзывы, курсор: {}, количество: {}", after, count);
+            reviews = reviewStorage.getPage(null, after, count);
         } else {
-            log.debug("Запрошены все отзывы фильма с id = {}", filmId);
-            reviews = reviewStorage.getByFilmId(filmId);
+            log.debug("Запрошены отзывы фильма с id = {}, курсор: {}, количество: {}", filmId, after, count);
+            reviews = reviewStorage.getPage(filmId, after, count);
         }
         log.debug("Количество выгруженных отзывов: {}", reviews.size());
-        log.trace("Перечень отзывов: {}", reviews.stream().map(Review::toString));
-        if (reviews.size() > count) {
-            reviews = reviews.stream().limit(count).collect(Collectors.toList());
-            log.debug("Количество отзывов ограничено {}", count);
-            log.trace("Итоговый перечень отзывов: {}", reviews.stream().map(Review::toString));
-        }
         return reviews;
     }
 
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewRatingStorage;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewUsefulReconciliationJob {
+
+    private final ReviewRatingStorage reviewRatingStorage;
+
+    @Scheduled(cron = "${filmorate.reviews.reconcile-cron:0 15 4 * * *}")
+    public void reconcile() {
+        int fixed = reviewRatingStorage.reconcileUsefulScores();
+
+        if (fixed > 0) {
+            log.warn("Полезность отзывов разошлась с оценками, исправлено отзывов: {}", fixed);
+        }
+        else {
+            log.info("Сверка полезности отзывов завершена, расхождений нет");
+        }
+    }
+}
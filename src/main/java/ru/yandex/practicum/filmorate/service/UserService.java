@@ -6,11 +6,17 @@ import ru.yandex.practicum.filmorate.model.EventOperation;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipGraph;
 import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.timeline.FriendsTimeline;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import ru.yandex.practicum.filmorate.validation.UserValidator;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +26,10 @@ public class UserService {
     private final UserStorage userStorage;
     private final FriendshipStorage friendshipStorage;
     private final EventService eventService;
+    private final LikeService likeService;
+    private final FriendshipGraph friendshipGraph;
+    private final FriendSuggestionService friendSuggestionService;
+    private final FriendsTimeline friendsTimeline;
 
     public User createUser(User user) {
         setUserName(user);
@@ -31,6 +41,10 @@ public class UserService {
         return userStorage.getAllUsers();
     }
 
+    public Collection<User> getAllUsers(Integer afterId, int limit) {
+        return userStorage.getUsersPage(Objects.isNull(afterId) ? 0 : afterId, limit);
+    }
+
     public User getUserById(Integer id) {
         User user = userStorage.getUserById(id);
 
@@ -40,19 +54,36 @@ public class UserService {
     }
 
     public void deleteUserById(Integer id) {
+        Collection<Integer> likedFilmIds = likeService.getUserLikedFilmIds(id);
+
         if (!userStorage.deleteUserById(id)) {
             throw new NotFoundException(String.format(NOT_FOUND_MESSAGE, id));
         }
+
+        likeService.onUserDeleted(id, likedFilmIds);
+        friendSuggestionService.invalidate(id);
+        friendshipGraph.removeUser(id);
+        friendsTimeline.removeUser(id);
     }
 
     public Collection<User> getUserFriends(Integer id) {
         User user = userStorage.getUserById(id);
         checkUserIsNotFound(user, id);
-        return userStorage.getUserFriends(id);
+        return friendshipGraph.getFriendIds(id)
+                .<Collection<User>>map(friendIds -> userStorage.getUsersByIds(toList(friendIds)))
+                .orElseGet(() -> userStorage.getUserFriends(id));
     }
 
     public Collection<User> getCommonFriends(Integer firstUserId, Integer secondUserId) {
-        return userStorage.getCommonFriends(firstUserId, secondUserId);
+        return friendshipGraph.getCommonFriendIds(firstUserId, secondUserId)
+                .<Collection<User>>map(friendIds -> userStorage.getUsersByIds(toList(friendIds)))
+                .orElseGet(() -> userStorage.getCommonFriends(firstUserId, secondUserId));
+    }
+
+    public Collection<User> getFriendSuggestions(Integer id, int limit) {
+        checkUserIsNotFound(userStorage.getUserById(id), id);
+
+        return friendSuggestionService.getSuggestions(id, limit);
     }
 
     public User updateUser(User user) {
@@ -66,11 +97,16 @@ public class UserService {
 
     public void addFriend(Integer userId, Integer friendId) {
         friendshipStorage.addFriend(userId, getUserById(friendId).getId());
+        friendSuggestionService.invalidate(userId);
+        friendsTimeline.invalidate(userId);
+        friendsTimeline.onFollowersChanged(friendId);
         eventService.createEvent(userId, EventType.FRIEND, EventOperation.ADD, friendId);
     }
 
     public void deleteFriend(Integer userId, Integer friendId) {
         friendshipStorage.deleteFriend(userId, friendId);
+        friendSuggestionService.invalidate(userId);
+        friendsTimeline.onFollowersChanged(friendId);
         eventService.createEvent(userId, EventType.FRIEND, EventOperation.REMOVE, friendId);
     }
 
@@ -80,6 +116,10 @@ public class UserService {
         }
     }
 
+    private static List<Integer> toList(int[] ids) {
+        return IntStream.of(ids).boxed().collect(Collectors.toList());
+    }
+
     private void setUserName(User user) {
         if (!UserValidator.isUserNameValid(user.getName())) {
             user.setName(user.getLogin());
@@ -8,6 +8,7 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 
 import java.sql.PreparedStatement;
 import java.util.Collection;
@@ -19,6 +20,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class DirectorDbStorage implements DirectorStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final FilmCache filmCache;
 
     @Override
     public Director createDirector(Director director) {
@@ -53,6 +55,8 @@ public class DirectorDbStorage implements DirectorStorage {
             return Optional.empty();
         }
 
+        filmCache.invalidateByDirector(director.getId());
+
         return Optional.of(director);
     }
 
@@ -85,6 +89,8 @@ public class DirectorDbStorage implements DirectorStorage {
 
         int status = jdbcTemplate.update(sqlQuery, id);
 
+        filmCache.invalidateByDirector(id);
+
         return status != 0;
     }
 }
@@ -2,10 +2,16 @@ package ru.yandex.practicum.filmorate.storage.event;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Event;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -13,28 +19,87 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class EventDbStorage implements EventStorage {
+    private static final String INSERT_EVENT_SQL =
+            "insert into feed (user_id, timestamp, event_type, operation, entity_id) values (?, ?, ?, ?, ?)";
     private final JdbcTemplate jdbcTemplate;
 
     @Override
     public List<Event> getFeed(int userId) {
         final String sql = "SELECT * " +
                 "FROM feed " +
-                "WHERE user_id = ? ";
+                "WHERE user_id = ? " +
+                "ORDER BY event_id";
 
         return jdbcTemplate.query(sql, new EventMapper(), userId);
     }
 
+    @Override
+    public List<Event> getFeedPage(int userId, int beforeEventId, int limit) {
+        final String sql = "SELECT * " +
+                "FROM (SELECT * FROM feed WHERE user_id = ? AND event_id < ? " +
+                "ORDER BY user_id, event_id DESC LIMIT ?) " +
+                "ORDER BY event_id";
+
+        return jdbcTemplate.query(sql, new EventMapper(), userId, beforeEventId, limit);
+    }
+
+    @Override
+    public List<Event> getFeedAfter(int userId, int afterEventId, int limit) {
+        final String sql = "SELECT * FROM feed WHERE user_id = ? AND event_id > ? " +
+                "ORDER BY user_id, event_id LIMIT ?";
+
+        return jdbcTemplate.query(sql, new EventMapper(), userId, afterEventId, limit);
+    }
+
+    @Override
+    public List<Event> getRecentEvents(Collection<Integer> userIds, int limit) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final String sql = "SELECT * FROM feed WHERE user_id = ANY(?) ORDER BY event_id DESC LIMIT ?";
+
+        return jdbcTemplate.query(sql, new EventMapper(), (Object) userIds.toArray(new Integer[0]), limit);
+    }
+
     @Override
     public void createEvent(Event event) {
-        final String sql = "insert into feed (user_id, timestamp, event_type, operation, entity_id) values (?, ?, ?, ?, ?)";
-
-        jdbcTemplate.update(
-                sql,
-                event.getUserId(),
-                event.getTimestamp(),
-                event.getEventType().name(),
-                event.getOperation().name(),
-                event.getEntityId()
-        );
+        createEvents(List.of(event));
+    }
+
+    @Override
+    @Transactional
+    public void createEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_EVENT_SQL,
+                    new String[]{"event_id"})) {
+                for (Event event : events) {
+                    preparedStatement.setInt(1, event.getUserId());
+                    preparedStatement.setLong(2, event.getTimestamp());
+                    preparedStatement.setString(3, event.getEventType().name());
+                    preparedStatement.setString(4, event.getOperation().name());
+                    preparedStatement.setInt(5, event.getEntityId());
+                    preparedStatement.addBatch();
+                }
+
+                preparedStatement.executeBatch();
+
+                try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                    for (Event event : events) {
+                        if (!keys.next()) {
+                            break;
+                        }
+
+                        event.setEventId(keys.getInt(1));
+                    }
+                }
+            }
+
+            return null;
+        });
     }
 }
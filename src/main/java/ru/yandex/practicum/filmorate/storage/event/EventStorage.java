@@ -2,10 +2,19 @@ package ru.yandex.practicum.filmorate.storage.event;
 
 import ru.yandex.practicum.filmorate.model.Event;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface EventStorage {
     List<Event> getFeed(int userId);
 
+    List<Event> getFeedPage(int userId, int beforeEventId, int limit);
+
+    List<Event> getFeedAfter(int userId, int afterEventId, int limit);
+
+    List<Event> getRecentEvents(Collection<Integer> userIds, int limit);
+
     void createEvent(Event event);
+
+    void createEvents(List<Event> events);
 }
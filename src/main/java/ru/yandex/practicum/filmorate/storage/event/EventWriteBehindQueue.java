@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.configuration.FeedWriteBehindProperties;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+public class EventWriteBehindQueue {
+
+    private final EventStorage eventStorage;
+    private final List<FeedEventListener> feedEventListeners;
+    private final FeedWriteBehindProperties properties;
+    private final BlockingQueue<Event> queue;
+    private final Lock flushLock = new ReentrantLock();
+    // записанные пакеты в порядке id, слушатели вызываются после снятия flushLock
+    private final Queue<List<Event>> recorded = new ConcurrentLinkedQueue<>();
+    private final Lock notifyLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter droppedEvents;
+    private final Counter failedEvents;
+    private volatile boolean running;
+    private Thread writer;
+
+    public EventWriteBehindQueue(EventStorage eventStorage,
+                                 List<FeedEventListener> feedEventListeners,
+                                 FeedWriteBehindProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.eventStorage = eventStorage;
+        this.feedEventListeners = feedEventListeners;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.flushTimer = meterRegistry.timer("filmorate.feed.queue.flush");
+        this.droppedEvents = meterRegistry.counter("filmorate.feed.queue.dropped");
+        this.failedEvents = meterRegistry.counter("filmorate.feed.queue.failed");
+        meterRegistry.gaugeCollectionSize("filmorate.feed.queue.depth", Tags.empty(), queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "feed-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+
+        if (Objects.nonNull(writer)) {
+            LockSupport.unpark(writer);
+            writer.join(properties.getFlushInterval().toMillis() * 10 + 1000);
+        }
+
+        flush();
+    }
+
+    public void enqueue(Event event) {
+        if (!running) {
+            writeNow(event);
+            notifyListeners();
+            return;
+        }
+
+        switch (properties.getPolicy()) {
+            case BLOCK:
+                try {
+                    queue.put(event);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    writeUserEvents(event.getUserId(), event);
+                    return;
+                }
+                break;
+            case DROP:
+                if (!queue.offer(event)) {
+                    droppedEvents.increment();
+                    log.warn("Очередь событий ленты переполнена, событие отброшено: {}", event);
+                    return;
+                }
+                break;
+            default:
+                if (!queue.offer(event)) {
+                    writeUserEvents(event.getUserId(), event);
+                    return;
+                }
+        }
+
+        if (queue.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public void flush() {
+        drainAndWrite(queue.size());
+        notifyListenersAndWait();
+    }
+
+    public void flushUser(int userId) {
+        writeUserEvents(userId, null);
+    }
+
+    private void writeLoop() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+
+        while (running) {
+            if (queue.size() < properties.getBatchSize()) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+
+            drainAndWrite(properties.getBatchSize());
+        }
+    }
+
+    private void writeNow(Event event) {
+        eventStorage.createEvent(event);
+        recorded.add(List.of(event));
+    }
+
+    private void notifyListeners() {
+        while (!recorded.isEmpty() && notifyLock.tryLock()) {
+            try {
+                notifyRecorded();
+            }
+            finally {
+                notifyLock.unlock();
+            }
+        }
+    }
+
+    private void notifyListenersAndWait() {
+        notifyLock.lock();
+
+        try {
+            notifyRecorded();
+        }
+        finally {
+            notifyLock.unlock();
+        }
+
+        notifyListeners();
+    }
+
+    private void notifyRecorded() {
+        List<Event> events;
+
+        while ((events = recorded.poll()) != null) {
+            notifyListeners(events);
+        }
+    }
+
+    private void notifyListeners(List<Event> events) {
+        for (FeedEventListener listener : feedEventListeners) {
+            try {
+                listener.onEventsRecorded(events);
+            }
+            catch (RuntimeException e) {
+                log.error("Ошибка обработки событий ленты слушателем {}", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void writeSingle(Event event) {
+        try {
+            writeNow(event);
+        }
+        catch (RuntimeException e) {
+            failedEvents.increment();
+            log.error("Не удалось записать событие ленты: {}", event, e);
+        }
+    }
+
+    // блокировка дожидается пакета, уже забранного фоновым потоком, чтобы ранние события получили меньшие id
+    private void writeUserEvents(int userId, Event extraEvent) {
+        flushLock.lock();
+
+        try {
+            List<Event> events = new ArrayList<>();
+
+            for (Iterator<Event> iterator = queue.iterator(); iterator.hasNext(); ) {
+                Event queued = iterator.next();
+
+                if (queued.getUserId() == userId) {
+                    iterator.remove();
+                    events.add(queued);
+                }
+            }
+
+            if (Objects.nonNull(extraEvent)) {
+                events.add(extraEvent);
+            }
+
+            writeEvents(events);
+        }
+        finally {
+            flushLock.unlock();
+        }
+
+        notifyListeners();
+    }
+
+    private void drainAndWrite(int maxEvents) {
+        flushLock.lock();
+
+        try {
+            List<Event> events = new ArrayList<>(Math.min(maxEvents, Math.max(queue.size(), 1)));
+
+            queue.drainTo(events, maxEvents);
+            writeEvents(events);
+        }
+        finally {
+            flushLock.unlock();
+        }
+
+        notifyListeners();
+    }
+
+    private void writeEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(() -> eventStorage.createEvents(events));
+        }
+        catch (RuntimeException e) {
+            log.warn("Не удалось записать пакет из {} событий ленты, записываем по одному", events.size(), e);
+            events.forEach(this::writeSingle);
+            return;
+        }
+
+        recorded.add(events);
+    }
+}
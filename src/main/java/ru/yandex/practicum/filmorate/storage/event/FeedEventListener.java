@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.List;
+
+public interface FeedEventListener {
+
+    void onEventsRecorded(List<Event> events);
+}
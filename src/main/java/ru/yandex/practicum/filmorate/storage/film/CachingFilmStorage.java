@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.constants.SearchBy;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.SortBy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Primary
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.film-cache.enabled", havingValue = "true")
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmDbStorage filmDbStorage;
+    private final FilmCache filmCache;
+
+    @Override
+    public Film createFilm(Film film) {
+        return filmDbStorage.createFilm(film);
+    }
+
+    @Override
+    public Film getFilmById(Integer id) {
+        Film film = filmCache.get(id);
+
+        if (Objects.isNull(film)) {
+            long generation = filmCache.getGeneration(id);
+
+            film = filmDbStorage.getFilmById(id);
+
+            if (Objects.nonNull(film)) {
+                filmCache.put(film, generation);
+            }
+        }
+
+        return film;
+    }
+
+    @Override
+    public Collection<Film> getAllFilms() {
+        return filmDbStorage.getAllFilms();
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(Collection<Integer> filmIds) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        Map<Integer, Long> missingGenerations = new LinkedHashMap<>();
+
+        filmIds.forEach(filmId -> {
+            Film film = filmCache.get(filmId);
+
+            if (Objects.isNull(film)) {
+                missingGenerations.put(filmId, filmCache.getGeneration(filmId));
+            } else {
+                filmsById.put(filmId, film);
+            }
+        });
+
+        filmDbStorage.getFilmsByIds(missingGenerations.keySet()).forEach(film -> {
+            filmCache.put(film, missingGenerations.get(film.getId()));
+            filmsById.put(film.getId(), film);
+        });
+
+        List<Film> films = new ArrayList<>(filmsById.size());
+
+        filmIds.forEach(filmId -> {
+            Film film = filmsById.get(filmId);
+
+            if (Objects.nonNull(film)) {
+                films.add(film);
+            }
+        });
+
+        return films;
+    }
+
+    @Override
+    public Collection<Film> getFilmsPage(Integer afterId, Integer limit) {
+        return filmDbStorage.getFilmsPage(afterId, limit);
+    }
+
+    @Override
+    public void streamAllFilms(int chunkSize, Consumer<Collection<Film>> chunkConsumer) {
+        filmDbStorage.streamAllFilms(chunkSize, chunkConsumer);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        Film updatedFilm = filmDbStorage.updateFilm(film);
+
+        filmCache.invalidate(film.getId());
+
+        return updatedFilm;
+    }
+
+    @Override
+    public Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
+        return filmDbStorage.getPopularFilms(count, genreId, year);
+    }
+
+    @Override
+    public Collection<Film> getCommonFilms(Integer userId, Integer friendId) {
+        return filmDbStorage.getCommonFilms(userId, friendId);
+    }
+
+    @Override
+    public Collection<Film> getDirectorFilms(Integer directorId, SortBy sortBy) {
+        return filmDbStorage.getDirectorFilms(directorId, sortBy);
+    }
+
+    @Override
+    public Collection<Film> getUserRecommendations(Integer userId) {
+        return filmDbStorage.getUserRecommendations(userId);
+    }
+
+    @Override
+    public boolean deleteFilmById(Integer id) {
+        boolean deleted = filmDbStorage.deleteFilmById(id);
+
+        filmCache.invalidate(id);
+
+        return deleted;
+    }
+
+    @Override
+    public Set<Film> search(String query, Set<SearchBy> searchFields) {
+        return filmDbStorage.search(query, searchFields);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Component
+public class FilmCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<Integer, CachedFilm> films;
+    private final long[] generations = new long[GENERATION_STRIPES];
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public FilmCache(@Value("${filmorate.film-cache.max-size:10000}") int maxSize,
+                     @Value("${filmorate.film-cache.ttl:10m}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedFilm> eldest) {
+                boolean evict = size() > FilmCache.this.maxSize;
+
+                if (evict) {
+                    evictions.increment();
+                }
+
+                return evict;
+            }
+        };
+        this.hits = meterRegistry.counter("filmorate.film.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("filmorate.film.cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("filmorate.film.cache.evictions");
+        meterRegistry.gaugeMapSize("filmorate.film.cache.size", Tags.empty(), films);
+    }
+
+    public synchronized Film get(int filmId) {
+        CachedFilm cachedFilm = films.get(filmId);
+
+        if (Objects.isNull(cachedFilm) || cachedFilm.expiresAt < System.currentTimeMillis()) {
+            if (Objects.nonNull(cachedFilm)) {
+                films.remove(filmId);
+            }
+
+            misses.increment();
+
+            return null;
+        }
+
+        hits.increment();
+
+        return copyOf(cachedFilm.film);
+    }
+
+    public synchronized long getGeneration(int filmId) {
+        return generations[toStripe(filmId)];
+    }
+
+    // фильм, прочитанный до инвалидации своей полосы id, в кэш не кладётся
+    public synchronized void put(Film film, long generation) {
+        if (generations[toStripe(film.getId())] != generation) {
+            return;
+        }
+
+        films.put(film.getId(), new CachedFilm(copyOf(film), System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void invalidate(int filmId) {
+        generations[toStripe(filmId)]++;
+        films.remove(filmId);
+    }
+
+    public synchronized void invalidateByDirector(int directorId) {
+        for (int i = 0; i < generations.length; i++) {
+            generations[i]++;
+        }
+
+        films.values().removeIf(cachedFilm -> Objects.nonNull(cachedFilm.film.getDirectors()) &&
+                cachedFilm.film.getDirectors().stream().anyMatch(director -> director.getId() == directorId));
+    }
+
+    private static int toStripe(int filmId) {
+        return filmId & (GENERATION_STRIPES - 1);
+    }
+
+    private static Film copyOf(Film film) {
+        Film.FilmBuilder copy = film.toBuilder();
+
+        if (Objects.nonNull(film.getMpa())) {
+            copy.mpa(film.getMpa().toBuilder().build());
+        }
+
+        if (Objects.nonNull(film.getGenres())) {
+            copy.genres(film.getGenres().stream()
+                    .map(genre -> genre.toBuilder().build())
+                    .collect(Collectors.toList()));
+        }
+
+        if (Objects.nonNull(film.getDirectors())) {
+            copy.directors(film.getDirectors().stream()
+                    .map(director -> director.toBuilder().build())
+                    .collect(Collectors.toList()));
+        }
+
+        return copy.build();
+    }
+
+    private static class CachedFilm {
+        private final Film film;
+        private final long expiresAt;
+
+        CachedFilm(Film film, long expiresAt) {
+            this.film = film;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
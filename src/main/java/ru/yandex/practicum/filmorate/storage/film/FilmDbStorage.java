@@ -1,39 +1,73 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.constants.SearchBy;
 import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.filmDirector.DirectorFilmIndex;
 import ru.yandex.practicum.filmorate.storage.filmDirector.FilmDirectorStorage;
 import ru.yandex.practicum.filmorate.storage.filmGenre.FilmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.filmMpa.FilmMpaStorage;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
-    private static final String FILMS_SQL =
-            "select f.*, m.id as mpa_id, m.name as mpa_name from films f left join film_mpas fm on f.id = fm.film_id " +
-                    "left join mpas m on fm.mpa_id = m.id";
-    private static final String SEARCH_FILM_BASE_QUERY = "select distinct films.id as id from films " +
-            "left join film_directors on films.id = film_directors.film_id " +
-            "left join directors on film_directors.director_id = directors.director_id ";
+    private static final String FILMS_SQL = "select * from films";
+    private static final String FILMS_ORDER = "f.id";
+    private static final String POPULAR_ORDER = "f.likes_count desc, f.id";
+    private static final String INSERT_FILM_MPA_SQL = "insert into film_mpas (film_id, mpa_id) values (?, ?)";
+    private static final String INSERT_FILM_GENRE_SQL = "insert into film_genres (film_id, genre_id) values (?, ?)";
+    private static final String INSERT_FILM_DIRECTOR_SQL =
+            "insert into film_directors (film_id, director_id) values (?, ?)";
     private final JdbcTemplate jdbcTemplate;
+    private final FilmHydrator filmHydrator;
+    private final FilmQueryBuilder filmQueryBuilder;
     private final FilmMpaStorage filmMpaStorage;
-    private final MpaStorage mpaStorage;
     private final FilmGenreStorage filmGenreStorage;
     private final FilmDirectorStorage filmDirectorStorage;
+    private final DirectorFilmIndex directorFilmIndex;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final DistributionSummary updateLinkRowsSummary;
+
+    public FilmDbStorage(JdbcTemplate jdbcTemplate,
+                         FilmHydrator filmHydrator,
+                         FilmQueryBuilder filmQueryBuilder,
+                         FilmMpaStorage filmMpaStorage,
+                         FilmGenreStorage filmGenreStorage,
+                         FilmDirectorStorage filmDirectorStorage,
+                         DirectorFilmIndex directorFilmIndex,
+                         ReferenceDataRegistry referenceDataRegistry,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.filmHydrator = filmHydrator;
+        this.filmQueryBuilder = filmQueryBuilder;
+        this.filmMpaStorage = filmMpaStorage;
+        this.filmGenreStorage = filmGenreStorage;
+        this.filmDirectorStorage = filmDirectorStorage;
+        this.directorFilmIndex = directorFilmIndex;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.updateLinkRowsSummary = DistributionSummary.builder("filmorate.film.update.link.rows")
+                .description("Количество строк связей фильма, измененных при обновлении")
+                .register(meterRegistry);
+    }
 
     @Override
+    @Transactional
     public Film createFilm(Film film) {
         final String sql = "insert into films (name, release_date, description, duration, rate) " +
                 "values (?, ?, ?, ?, ?)";
@@ -52,42 +86,56 @@ public class FilmDbStorage implements FilmStorage {
         }, generatedKeyHolder);
 
         int filmId = Objects.requireNonNull(generatedKeyHolder.getKey()).intValue();
+        Collection<Integer> genreIds = getDistinctGenreIds(film.getGenres());
+        Collection<Director> directors = getDistinctDirectors(film.getDirectors());
 
         film.setId(filmId);
+        insertFilmLinks(filmId, List.of(film.getMpa().getId()), genreIds, getDirectorIds(directors));
 
-        return addExtraFields(film);
+        return toStoredFilm(film, genreIds, directors);
     }
 
     @Override
     public Film getFilmById(Integer filmId) {
-        List<Film> films = jdbcTemplate.query(FILMS_SQL.concat(" where f.id = ?"), new FilmMapper(), filmId);
+        List<Film> films = filmHydrator.query(FILMS_SQL.concat(" where id = ?"), FILMS_ORDER, filmId);
 
-        if (!films.isEmpty()) {
-            Collection<Genre> filmGenres = filmGenreStorage.getAllFilmGenresById(filmId);
-            Collection<Director> directors = filmDirectorStorage.getFilmDirectors(filmId);
+        return films.isEmpty() ? null : films.get(0);
+    }
 
-            return films.get(0).toBuilder().genres(filmGenres).directors(directors).build();
-        }
+    @Override
+    public Collection<Film> getAllFilms() {
+        return filmHydrator.query(FILMS_SQL, FILMS_ORDER);
+    }
 
-        return null;
+    @Override
+    public Collection<Film> getFilmsPage(Integer afterId, Integer limit) {
+        return filmHydrator.query(FILMS_SQL.concat(" where id > ? order by id limit ?"), FILMS_ORDER, afterId, limit);
     }
 
     @Override
-    public Collection<Film> getAllFilms() {
-        Collection<Film> films = jdbcTemplate.query(FILMS_SQL, new FilmMapper());
+    public void streamAllFilms(int chunkSize, Consumer<Collection<Film>> chunkConsumer) {
+        final List<Film> chunk = new ArrayList<>(chunkSize);
 
-        return setFilmGenresAndDirectors(films);
+        filmHydrator.stream(FILMS_SQL, chunkSize, film -> {
+            chunk.add(film);
+
+            if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk.clear();
+            }
+        });
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
     }
 
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
         final String sql = "update films set name = ?, release_date = ?, description = ?, duration = ?, " +
                 "rate = ? where id = ?";
 
-        filmMpaStorage.deleteFilmMpaById(film.getId());
-        filmGenreStorage.deleteAllFilmGenresById(film.getId());
-        filmDirectorStorage.deleteFilmDirectors(film.getId());
-
         jdbcTemplate.update(sql,
                 film.getName(),
                 film.getReleaseDate(),
@@ -97,41 +145,28 @@ public class FilmDbStorage implements FilmStorage {
                 film.getId()
         );
 
-        return addExtraFields(film);
+        int touchedLinks = updateFilmLinks(film);
+
+        updateLinkRowsSummary.record(touchedLinks);
+        log.debug("Обновлен фильм с id = {}, изменено связей: {}", film.getId(), touchedLinks);
+
+        return toStoredFilm(film, getDistinctGenreIds(film.getGenres()), getDistinctDirectors(film.getDirectors()));
     }
 
     @Override
     public Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
-        final Collection<String> params = new ArrayList<>();
-        String sql =
-                "select f.*, m.id as mpa_id, m.name as mpa_name from films f left join likes l on f.id = l.film_id " +
-                        "left join film_mpas fm on f.id = fm.film_id left join mpas m on fm.mpa_id = m.id " +
-                        "left join film_genres fg on f.id = fg.film_id %s group by f.name, f.id order by count(l.film_id) desc limit ?";
-
-        if (Objects.nonNull(genreId)) {
-            params.add(String.format("genre_id = %s", genreId));
-        }
+        FilmQueryBuilder.Query query = filmQueryBuilder.popularFilms(count, genreId, year);
 
-        if (Objects.nonNull(year)) {
-            params.add(String.format("YEAR(release_date) = %s", year));
-        }
-
-        final String genreAndYearParams = !params.isEmpty() ? "where ".concat(String.join(" and ", params)) : "";
-        Collection<Film> films = jdbcTemplate.query(String.format(sql, genreAndYearParams), new FilmMapper(), count);
-
-        return setFilmGenresAndDirectors(films);
+        return filmHydrator.query(query.getSql(), POPULAR_ORDER, query.getArgs());
     }
 
     @Override
     public Collection<Film> getCommonFilms(Integer userId, Integer friendId) {
-        String sql = "select * from (select f.*, m.id as mpa_id, m.name as mpa_name from films f " +
-                "left join likes l on f.id = l.film_id left join film_mpas fm on f.id = fm.film_id " +
-                "left join mpas m on fm.mpa_id = m.id left join film_genres fg on f.id = fg.film_id " +
-                "group by f.name, f.id order by count(l.film_id)) f, likes l1, likes l2 " +
-                "where f.id = l1.film_id and f.id = l2.film_id and l1.user_id = ? and l2.user_id = ?";
-        Collection<Film> films = jdbcTemplate.query(sql, new FilmMapper(), userId, friendId);
-
-        return setFilmGenresAndDirectors(films);
+        String sql = "select f.* from films f " +
+                "join likes l1 on f.id = l1.film_id and l1.user_id = ? " +
+                "join likes l2 on f.id = l2.film_id and l2.user_id = ?";
+
+        return filmHydrator.query(sql, POPULAR_ORDER, userId, friendId);
     }
 
     @Override
@@ -143,38 +178,15 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Collection<Film> getDirectorFilms(Integer directorId, SortBy sortBy) {
-        String yearOrderSql = "select f.*, " +
-                "       m.id as mpa_id, " +
-                "       m.name as mpa_name " +
-                "from film_directors fd " +
-                "         join films f on f.id = fd.film_id " +
-                "         join film_mpas fm on f.id = fm.film_id " +
-                "         join mpas m on fm.mpa_id = m.id " +
-                "where director_id = ? " +
-                "order by year(f.release_date)";
-
-        String likesOrderSql = "select f.*,  " +
-                "       m.id as mpa_id,  " +
-                "       m.name as mpa_name,  " +
-                "       (select count(*) from likes where fd.film_id = likes.film_id) as likes " +
-                "from film_directors fd " +
-                "join films f on f.id = fd.film_id " +
-                "join film_mpas fm on f.id = fm.film_id " +
-                "join mpas m on fm.mpa_id = m.id " +
-                "where director_id = ? " +
-                "order by likes desc;";
-
-        Collection<Film> films = jdbcTemplate.query(
-                sortBy == SortBy.LIKES ? likesOrderSql : yearOrderSql,
-                new FilmMapper(),
+        String sql = "select f.* from films f " +
+                "join film_directors fd on f.id = fd.film_id " +
+                "where fd.director_id = ?";
+
+        return filmHydrator.query(
+                sql,
+                sortBy == SortBy.LIKES ? POPULAR_ORDER : "year(f.release_date), f.id",
                 directorId
         );
-
-        if (films.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return setFilmGenresAndDirectors(films);
     }
 
     @Override
@@ -186,7 +198,7 @@ public class FilmDbStorage implements FilmStorage {
                 "from likes l1 " +
                 "where user_id = ?) and l.user_id <> ?" +
                 "group by l.user_id " +
-                "order by count(l.film_id) " +
+                "order by count(l.film_id) desc " +
                 "limit 1";
 
         final List<Integer> userIds = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getInt("user_id"), userId, userId);
@@ -197,71 +209,173 @@ public class FilmDbStorage implements FilmStorage {
 
         int similarUserId = userIds.get(0);
 
-        String filmsFromUser = "select f.*, m.id as mpa_id, m.name as mpa_name " +
-                "from films as f left join film_mpas as fm on f.id = fm.film_id " +
-                "left join mpas as m on fm.mpa_id = m.id " +
-                "left join likes as l on f.id = l.film_id " +
-                "where l.user_id = ?";
+        String filmsFromUser = "select f.* from films f " +
+                "where f.id in (select film_id from likes where user_id = ?) " +
+                "and f.id not in (select film_id from likes where user_id = ?)";
+
+        return filmHydrator.query(filmsFromUser, FILMS_ORDER, similarUserId, userId);
+    }
+
+    private int updateFilmLinks(Film film) {
+        final String sql = "select 'mpa' as link_type, mpa_id as link_id from film_mpas where film_id = ? " +
+                "union all select 'genre', genre_id from film_genres where film_id = ? " +
+                "union all select 'director', director_id from film_directors where film_id = ?";
 
-        List<Film> userFilms = jdbcTemplate.query(filmsFromUser, new FilmMapper(), userId);
-        List<Film> similarUserFilms = jdbcTemplate.query(filmsFromUser, new FilmMapper(), similarUserId);
+        int filmId = film.getId();
+        Set<Integer> storedMpaIds = new HashSet<>();
+        Set<Integer> storedGenreIds = new HashSet<>();
+        Set<Integer> storedDirectorIds = new HashSet<>();
+
+        jdbcTemplate.query(sql, rs -> {
+            switch (rs.getString("link_type")) {
+                case "mpa":
+                    storedMpaIds.add(rs.getInt("link_id"));
+                    break;
+                case "genre":
+                    storedGenreIds.add(rs.getInt("link_id"));
+                    break;
+                default:
+                    storedDirectorIds.add(rs.getInt("link_id"));
+            }
+        }, filmId, filmId, filmId);
+
+        int mpaId = film.getMpa().getId();
+        Collection<Integer> addedMpaIds = List.of();
+        int touchedLinks = 0;
 
-        similarUserFilms.removeAll(userFilms);
+        if (!storedMpaIds.equals(Set.of(mpaId))) {
+            filmMpaStorage.deleteFilmMpaById(filmId);
+            addedMpaIds = List.of(mpaId);
+            touchedLinks += storedMpaIds.size();
+        }
 
-        return setFilmGenresAndDirectors(similarUserFilms);
+        Collection<Integer> genreIds = getDistinctGenreIds(film.getGenres());
+        Collection<Integer> deletedGenreIds = getMissing(storedGenreIds, genreIds);
+        Collection<Integer> addedGenreIds = getMissing(genreIds, storedGenreIds);
+
+        filmGenreStorage.deleteFilmGenres(filmId, deletedGenreIds);
+
+        Collection<Integer> directorIds = getDirectorIds(getDistinctDirectors(film.getDirectors()));
+        Collection<Integer> deletedDirectorIds = getMissing(storedDirectorIds, directorIds);
+        Collection<Integer> addedDirectorIds = getMissing(directorIds, storedDirectorIds);
+
+        filmDirectorStorage.deleteFilmDirectors(filmId, deletedDirectorIds);
+        insertFilmLinks(filmId, addedMpaIds, addedGenreIds, addedDirectorIds);
+        touchedLinks += deletedGenreIds.size() + deletedDirectorIds.size()
+                + addedMpaIds.size() + addedGenreIds.size() + addedDirectorIds.size();
+
+        return touchedLinks;
     }
 
-    private Collection<Film> setFilmGenresAndDirectors(Collection<Film> films) {
-        Map<Integer, Collection<Genre>> filmGenresMap = filmGenreStorage.getAllFilmGenres(films);
-        Map<Integer, Collection<Director>> filmDirectorsMap = filmDirectorStorage.getFilmDirectors(films);
+    private void insertFilmLinks(int filmId, Collection<Integer> mpaIds, Collection<Integer> genreIds,
+                                 Collection<Integer> directorIds) {
+        if (mpaIds.isEmpty() && genreIds.isEmpty() && directorIds.isEmpty()) {
+            return;
+        }
 
-        films.forEach(film -> {
-            Integer filmId = film.getId();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            insertLinkBatch(connection, INSERT_FILM_MPA_SQL, filmId, mpaIds);
+            insertLinkBatch(connection, INSERT_FILM_GENRE_SQL, filmId, genreIds);
+            insertLinkBatch(connection, INSERT_FILM_DIRECTOR_SQL, filmId, directorIds);
 
-            film.setGenres(filmGenresMap.getOrDefault(filmId, new ArrayList<>()));
-            film.setDirectors(filmDirectorsMap.getOrDefault(filmId, new ArrayList<>()));
+            return null;
         });
 
-        return films;
+        directorFilmIndex.addFilmDirectors(filmId, directorIds);
     }
 
-    private Film addExtraFields(Film film) {
+    private static void insertLinkBatch(Connection connection, String sql, int filmId, Collection<Integer> linkIds)
+            throws SQLException {
+        if (linkIds.isEmpty()) {
+            return;
+        }
 
-        int filmId = film.getId();
-        int mpaId = film.getMpa().getId();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for (Integer linkId : linkIds) {
+                preparedStatement.setInt(1, filmId);
+                preparedStatement.setInt(2, linkId);
+                preparedStatement.addBatch();
+            }
 
-        filmMpaStorage.addFilmMpa(filmId, mpaId);
-        film.getGenres().forEach(genre -> filmGenreStorage.addFilmGenre(filmId, genre.getId()));
+            preparedStatement.executeBatch();
+        }
+    }
 
-        Mpa filmMpa = mpaStorage.getMpaById(mpaId);
-        Collection<Genre> filmGenres = filmGenreStorage.getAllFilmGenresById(filmId);
+    // связи сортируются по id, как в запросе гидрации
+    private Film toStoredFilm(Film film, Collection<Integer> genreIds, Collection<Director> directors) {
+        return film.toBuilder()
+                .mpa(referenceDataRegistry.resolveMpa(film.getMpa().getId()))
+                .genres(genreIds.stream()
+                        .sorted()
+                        .map(referenceDataRegistry::resolveGenre)
+                        .collect(Collectors.toList()))
+                .directors(directors.stream()
+                        .sorted(Comparator.comparingInt(Director::getId))
+                        .collect(Collectors.toList()))
+                .build();
+    }
 
-        filmDirectorStorage.setFilmDirectors(film.getDirectors(), filmId);
-        Collection<Director> directors = filmDirectorStorage.getFilmDirectors(filmId);
+    private static Collection<Integer> getMissing(Collection<Integer> source, Collection<Integer> target) {
+        Set<Integer> targetIds = new HashSet<>(target);
 
-        return film.toBuilder().mpa(filmMpa).genres(filmGenres).directors(directors).build();
+        return source.stream().filter(id -> !targetIds.contains(id)).collect(Collectors.toList());
+    }
+
+    private static Collection<Integer> getDistinctGenreIds(Collection<Genre> genres) {
+        if (Objects.isNull(genres)) {
+            return Collections.emptyList();
+        }
+
+        return genres.stream().map(Genre::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static Collection<Integer> getDirectorIds(Collection<Director> directors) {
+        return directors.stream().map(Director::getId).collect(Collectors.toList());
+    }
+
+    private static Collection<Director> getDistinctDirectors(Collection<Director> directors) {
+        if (Objects.isNull(directors)) {
+            return Collections.emptyList();
+        }
+
+        return directors.stream()
+                .collect(Collectors.toMap(Director::getId, director -> director, (first, second) -> first,
+                        LinkedHashMap::new))
+                .values();
     }
 
     @Override
     public Set<Film> search(String query, Set<SearchBy> searchFields) {
+        if (searchFields.isEmpty()) {
+            return Collections.emptySet();
+        }
 
-        String searchQueryParameters = searchFields.stream()
-                .map(field -> "Lower(" + field.getSqlTableAndFieldName() + ") LIKE '%" + query.toLowerCase() + "%'")
-                .collect(Collectors.joining(" OR "));
-        String searchQuery = SEARCH_FILM_BASE_QUERY + " WHERE " + searchQueryParameters;
-        log.trace("Текст запроса поиска фильмов: {}", SEARCH_FILM_BASE_QUERY + searchQuery);
+        FilmQueryBuilder.Query searchQuery = filmQueryBuilder.search(query, searchFields);
+        log.trace("Текст запроса поиска фильмов: {}", searchQuery.getSql());
 
-        Set<Integer> filmIds = new HashSet<>(jdbcTemplate.query(searchQuery, (rs, rowNum) -> rs.getInt("id")));
+        Set<Integer> filmIds = new HashSet<>(jdbcTemplate.query(searchQuery.getSql(),
+                (rs, rowNum) -> rs.getInt("id"), searchQuery.getArgs()));
         log.trace("Получены следующие ID фильмов, подходящие под условия поиска: {}", filmIds);
-        Set<Film> films = getFilmsByIds(filmIds);
+        Set<Film> films = new HashSet<>(getFilmsByIds(filmIds));
         log.trace("Получен список фильмов по ID: {}", films);
-        return new HashSet<>(setFilmGenresAndDirectors(films));
+        return films;
     }
 
-    private Set<Film> getFilmsByIds(Set<Integer> filmIds) {
-        String joinedFilmIds = filmIds.stream().map(x -> Integer.toString(x)).collect(Collectors.joining(","));
-        String searchQuery = String.format("%s WHERE f.id IN (%s)", FILMS_SQL, joinedFilmIds);
-        return new HashSet<>(jdbcTemplate.query(searchQuery, new FilmMapper()));
+    @Override
+    public List<Film> getFilmsByIds(Collection<Integer> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Integer[] ids = filmIds.toArray(new Integer[0]);
+        Map<Integer, Film> filmsById = filmHydrator.query(FilmQueryBuilder.FILMS_BY_IDS_SQL, FILMS_ORDER, (Object) ids)
+                .stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
 }
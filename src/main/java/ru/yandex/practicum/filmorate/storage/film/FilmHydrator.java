@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+public class FilmHydrator {
+
+    private static final String HYDRATION_SQL = "select f.*, fm.mpa_id as mpa_id, fg.genre_id as genre_id, " +
+            "d.director_id as director_id, d.name as director_name " +
+            "from (%s) f " +
+            "left join film_mpas fm on f.id = fm.film_id " +
+            "left join film_genres fg on f.id = fg.film_id " +
+            "left join film_directors fd on f.id = fd.film_id " +
+            "left join directors d on fd.director_id = d.director_id " +
+            "order by %s, fg.genre_id, d.director_id";
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataRegistry referenceDataRegistry;
+
+    public List<Film> query(String filmsSql, String filmsOrder, Object... args) {
+        FilmRowAssembler assembler = new FilmRowAssembler();
+
+        jdbcTemplate.query(String.format(HYDRATION_SQL, filmsSql, filmsOrder), assembler, args);
+
+        return assembler.getFilms();
+    }
+
+    public void stream(String filmsSql, int fetchSize, Consumer<Film> filmConsumer, Object... args) {
+        final String sql = String.format(HYDRATION_SQL, filmsSql, "f.id");
+        StreamingFilmRowAssembler assembler = new StreamingFilmRowAssembler(filmConsumer);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setFetchSize(fetchSize);
+
+            for (int i = 0; i < args.length; i++) {
+                preparedStatement.setObject(i + 1, args[i]);
+            }
+
+            return preparedStatement;
+        }, assembler);
+
+        assembler.finish();
+    }
+
+    private class FilmRowAssembler implements RowCallbackHandler {
+        private final FilmMapper filmMapper = new FilmMapper(referenceDataRegistry);
+        private final Map<Integer, FilmRows> filmRowsById = new LinkedHashMap<>();
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            FilmRows filmRows = filmRowsById.get(rs.getInt("id"));
+
+            if (Objects.isNull(filmRows)) {
+                filmRows = new FilmRows(filmMapper.mapRow(rs, rs.getRow()));
+                filmRowsById.put(filmRows.film.getId(), filmRows);
+            }
+
+            filmRows.addRow(rs);
+        }
+
+        List<Film> getFilms() {
+            List<Film> films = new ArrayList<>(filmRowsById.size());
+
+            filmRowsById.values().forEach(filmRows -> films.add(filmRows.build()));
+
+            return films;
+        }
+    }
+
+    private class StreamingFilmRowAssembler implements RowCallbackHandler {
+        private final FilmMapper filmMapper = new FilmMapper(referenceDataRegistry);
+        private final Consumer<Film> filmConsumer;
+        private FilmRows current;
+
+        StreamingFilmRowAssembler(Consumer<Film> filmConsumer) {
+            this.filmConsumer = filmConsumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (Objects.isNull(current) || current.film.getId() != rs.getInt("id")) {
+                finish();
+                current = new FilmRows(filmMapper.mapRow(rs, rs.getRow()));
+            }
+
+            current.addRow(rs);
+        }
+
+        void finish() {
+            if (Objects.nonNull(current)) {
+                filmConsumer.accept(current.build());
+                current = null;
+            }
+        }
+    }
+
+    private class FilmRows {
+        private final Film film;
+        private final Map<Integer, Genre> genres = new LinkedHashMap<>();
+        private final Map<Integer, Director> directors = new LinkedHashMap<>();
+
+        FilmRows(Film film) {
+            this.film = film;
+        }
+
+        void addRow(ResultSet rs) throws SQLException {
+            int genreId = rs.getInt("genre_id");
+
+            if (!rs.wasNull() && !genres.containsKey(genreId)) {
+                genres.put(genreId, referenceDataRegistry.resolveGenre(genreId));
+            }
+
+            int directorId = rs.getInt("director_id");
+
+            if (!rs.wasNull() && !directors.containsKey(directorId)) {
+                directors.put(directorId, new Director(rs.getString("director_name"), directorId));
+            }
+        }
+
+        Film build() {
+            film.setGenres(new ArrayList<>(genres.values()));
+            film.setDirectors(new ArrayList<>(directors.values()));
+
+            return film;
+        }
+    }
+}
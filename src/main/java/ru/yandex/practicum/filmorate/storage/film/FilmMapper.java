@@ -3,21 +3,32 @@ package ru.yandex.practicum.filmorate.storage.film;
 import org.springframework.jdbc.core.RowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Objects;
 
 public class FilmMapper implements RowMapper<Film> {
 
+    private final ReferenceDataRegistry referenceDataRegistry;
+
+    public FilmMapper(ReferenceDataRegistry referenceDataRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+    }
+
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
+        int mpaId = rs.getInt("mpa_id");
+        Mpa mpa = referenceDataRegistry.resolveMpa(mpaId);
+
         return new Film()
                 .toBuilder()
                 .id(rs.getInt("id"))
                 .name(rs.getString("name"))
                 .description(rs.getString("description"))
                 .releaseDate(rs.getDate("release_date").toLocalDate())
-                .mpa(new Mpa(rs.getInt("MPA_ID"), rs.getString("MPA_NAME")))
+                .mpa(Objects.isNull(mpa) ? new Mpa(mpaId, null) : mpa)
                 .duration(rs.getInt("duration"))
                 .rate(rs.getInt("rate"))
                 .build();
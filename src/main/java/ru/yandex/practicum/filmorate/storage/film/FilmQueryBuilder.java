@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.constants.SearchBy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// текст запроса зависит только от набора фильтров, поэтому H2 переиспользует разбор и план
+@Component
+public class FilmQueryBuilder {
+
+    static final String FILMS_BY_IDS_SQL = "select * from films where id = any(?)";
+    private static final int POPULAR_SHAPE = 0;
+    private static final int SEARCH_SHAPE = 1 << 8;
+    private static final String SEARCH_FILMS_SQL = "select distinct films.id as id from films " +
+            "left join film_directors on films.id = film_directors.film_id " +
+            "left join directors on film_directors.director_id = directors.director_id ";
+    private final Map<Integer, String> statements = new ConcurrentHashMap<>();
+
+    public Query popularFilms(Integer count, Integer genreId, Integer year) {
+        int shape = POPULAR_SHAPE | (Objects.nonNull(genreId) ? 1 : 0) | (Objects.nonNull(year) ? 2 : 0);
+        List<Object> args = new ArrayList<>(4);
+
+        if (Objects.nonNull(genreId)) {
+            args.add(genreId);
+        }
+
+        if (Objects.nonNull(year)) {
+            args.add(LocalDate.of(year, 1, 1));
+            args.add(LocalDate.of(year + 1, 1, 1));
+        }
+
+        args.add(count);
+
+        return new Query(getStatement(shape, () -> buildPopularFilms(genreId, year)), args.toArray());
+    }
+
+    public Query search(String query, Set<SearchBy> searchFields) {
+        int shape = SEARCH_SHAPE;
+
+        for (SearchBy searchBy : searchFields) {
+            shape |= 1 << searchBy.ordinal();
+        }
+
+        String pattern = "%" + escapeLike(query.toLowerCase()) + "%";
+        Object[] args = new Object[searchFields.size()];
+
+        Arrays.fill(args, pattern);
+
+        return new Query(getStatement(shape, () -> buildSearch(searchFields)), args);
+    }
+
+    private String getStatement(int shape, Supplier<String> sqlBuilder) {
+        return statements.computeIfAbsent(shape, ignored -> sqlBuilder.get());
+    }
+
+    private static String buildPopularFilms(Integer genreId, Integer year) {
+        Collection<String> conditions = new ArrayList<>();
+
+        if (Objects.nonNull(genreId)) {
+            conditions.add("f.id in (select film_id from film_genres where genre_id = ?)");
+        }
+
+        if (Objects.nonNull(year)) {
+            conditions.add("f.release_date >= ? and f.release_date < ?");
+        }
+
+        String where = conditions.isEmpty() ? "" : "where ".concat(String.join(" and ", conditions)).concat(" ");
+
+        return "select * from films f " + where + "order by f.likes_count desc, f.id limit ?";
+    }
+
+    private static String buildSearch(Set<SearchBy> searchFields) {
+        return SEARCH_FILMS_SQL + "where " + searchFields.stream()
+                .sorted()
+                .map(field -> "lower(" + field.getSqlTableAndFieldName() + ") like ? escape '\\'")
+                .collect(Collectors.joining(" or "));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Query {
+        private final String sql;
+        private final Object[] args;
+    }
+}
@@ -5,7 +5,9 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.SortBy;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
@@ -15,6 +17,12 @@ public interface FilmStorage {
 
     Collection<Film> getAllFilms();
 
+    List<Film> getFilmsByIds(Collection<Integer> filmIds);
+
+    Collection<Film> getFilmsPage(Integer afterId, Integer limit);
+
+    void streamAllFilms(int chunkSize, Consumer<Collection<Film>> chunkConsumer);
+
     Film updateFilm(Film film);
 
     Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year);
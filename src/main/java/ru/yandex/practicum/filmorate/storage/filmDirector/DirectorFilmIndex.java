@@ -0,0 +1,408 @@
+package ru.yandex.practicum.filmorate.storage.filmDirector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.SortBy;
+import ru.yandex.practicum.filmorate.storage.like.LikeListener;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+public class DirectorFilmIndex implements LikeListener {
+
+    private static final int NO_YEAR = 0;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, FilmEntry> films = new HashMap<>();
+    private final Map<Integer, DirectorFilms> directors = new HashMap<>();
+    // фильмы, запись которых сейчас читается из базы без блокировки
+    private final Map<Integer, PendingLoad> pendingLoads = new HashMap<>();
+    private volatile boolean loaded;
+
+    public DirectorFilmIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        final String sql = "select fd.director_id, f.id, f.release_date, f.likes_count from film_directors fd " +
+                "join films f on f.id = fd.film_id";
+
+        lock.writeLock().lock();
+
+        try {
+            films.clear();
+            directors.clear();
+
+            jdbcTemplate.query(sql, rs -> {
+                int filmId = rs.getInt("id");
+                FilmEntry entry = films.get(filmId);
+
+                if (Objects.isNull(entry)) {
+                    entry = new FilmEntry(toYear(rs.getDate("release_date")), rs.getInt("likes_count"));
+                    films.put(filmId, entry);
+                }
+
+                addDirector(filmId, entry, rs.getInt("director_id"));
+            });
+
+            loaded = true;
+            log.info("Индекс фильмов режиссёров построен, режиссёров: {}, фильмов: {}",
+                    directors.size(), films.size());
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<List<Integer>> getFilmIds(int directorId, SortBy sortBy) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+
+        try {
+            DirectorFilms directorFilms = directors.get(directorId);
+
+            if (Objects.isNull(directorFilms)) {
+                return Optional.of(List.of());
+            }
+
+            NavigableSet<Long> keys = sortBy == SortBy.LIKES ? directorFilms.byLikes : directorFilms.byYear;
+            List<Integer> filmIds = new ArrayList<>(keys.size());
+
+            keys.forEach(key -> filmIds.add(toFilmId(key)));
+
+            return Optional.of(filmIds);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addFilmDirectors(int filmId, Collection<Integer> directorIds) {
+        if (directorIds.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> applyFilmDirectors(filmId, directorIds));
+    }
+
+    public void removeFilmDirectors(int filmId, Collection<Integer> directorIds) {
+        afterCommit(() -> applyRemoveFilmDirectors(filmId, directorIds));
+    }
+
+    public void removeFilm(int filmId) {
+        afterCommit(() -> applyRemoveFilm(filmId));
+    }
+
+    public void putFilm(Film film) {
+        afterCommit(() -> applyFilm(film));
+    }
+
+    public void removeDirector(int directorId) {
+        afterCommit(() -> applyRemoveDirector(directorId));
+    }
+
+    private void applyFilmDirectors(int filmId, Collection<Integer> directorIds) {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long changes;
+
+            lock.writeLock().lock();
+
+            try {
+                PendingLoad pendingLoad = pendingLoads.computeIfAbsent(filmId, id -> new PendingLoad());
+
+                pendingLoad.loaders++;
+                changes = pendingLoad.changes;
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+
+            FilmEntry loadedEntry = loadEntry(filmId);
+
+            lock.writeLock().lock();
+
+            try {
+                PendingLoad pendingLoad = pendingLoads.get(filmId);
+                boolean changed = pendingLoad.changes != changes;
+
+                if (--pendingLoad.loaders == 0) {
+                    pendingLoads.remove(filmId);
+                }
+
+                FilmEntry entry = films.get(filmId);
+
+                if (Objects.isNull(entry)) {
+                    if (changed) {
+                        continue;
+                    }
+
+                    if (Objects.isNull(loadedEntry)) {
+                        return;
+                    }
+
+                    entry = loadedEntry;
+                    films.put(filmId, entry);
+                }
+
+                for (Integer directorId : directorIds) {
+                    addDirector(filmId, entry, directorId);
+                }
+
+                return;
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        log.warn("Фильм с id = {} менялся во время загрузки в индекс режиссёров, индекс перестраивается", filmId);
+        rebuild();
+    }
+
+    private void applyRemoveFilmDirectors(int filmId, Collection<Integer> directorIds) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry entry = films.get(filmId);
+
+            if (Objects.isNull(entry)) {
+                return;
+            }
+
+            for (Integer directorId : directorIds) {
+                removeDirector(filmId, entry, directorId);
+            }
+
+            if (entry.directorIds.isEmpty()) {
+                films.remove(filmId);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyRemoveFilm(int filmId) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry entry = films.get(filmId);
+
+            if (Objects.isNull(entry)) {
+                markChanged(filmId);
+                return;
+            }
+
+            new ArrayList<>(entry.directorIds).forEach(directorId -> removeDirector(filmId, entry, directorId));
+            films.remove(filmId);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyFilm(Film film) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry entry = films.get(film.getId());
+            int year = Objects.isNull(film.getReleaseDate()) ? NO_YEAR : film.getReleaseDate().getYear();
+
+            if (Objects.isNull(entry)) {
+                markChanged(film.getId());
+                return;
+            }
+
+            if (entry.year == year) {
+                return;
+            }
+
+            forEachDirector(entry, directorFilms -> directorFilms.byYear.remove(toYearKey(film.getId(), entry)));
+            entry.year = year;
+            forEachDirector(entry, directorFilms -> directorFilms.byYear.add(toYearKey(film.getId(), entry)));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyRemoveDirector(int directorId) {
+        lock.writeLock().lock();
+
+        try {
+            DirectorFilms directorFilms = directors.remove(directorId);
+
+            if (Objects.isNull(directorFilms)) {
+                return;
+            }
+
+            for (Long key : directorFilms.byYear) {
+                int filmId = toFilmId(key);
+                FilmEntry entry = films.get(filmId);
+
+                entry.directorIds.remove(directorId);
+
+                if (entry.directorIds.isEmpty()) {
+                    films.remove(filmId);
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(int filmId, int userId) {
+        changeLikes(filmId, 1);
+    }
+
+    @Override
+    public void onLikeRemoved(int filmId, int userId) {
+        changeLikes(filmId, -1);
+    }
+
+    private void changeLikes(int filmId, int delta) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry entry = films.get(filmId);
+
+            if (Objects.isNull(entry)) {
+                markChanged(filmId);
+                return;
+            }
+
+            forEachDirector(entry, directorFilms -> directorFilms.byLikes.remove(toLikesKey(filmId, entry)));
+            entry.likes = Math.max(0, entry.likes + delta);
+            forEachDirector(entry, directorFilms -> directorFilms.byLikes.add(toLikesKey(filmId, entry)));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markChanged(int filmId) {
+        PendingLoad pendingLoad = pendingLoads.get(filmId);
+
+        if (Objects.nonNull(pendingLoad)) {
+            pendingLoad.changes++;
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private FilmEntry loadEntry(int filmId) {
+        final String sql = "select release_date, likes_count from films where id = ?";
+
+        return jdbcTemplate.query(sql, rs -> rs.next()
+                ? new FilmEntry(toYear(rs.getDate("release_date")), rs.getInt("likes_count"))
+                : null, filmId);
+    }
+
+    private void addDirector(int filmId, FilmEntry entry, int directorId) {
+        if (!entry.directorIds.add(directorId)) {
+            return;
+        }
+
+        DirectorFilms directorFilms = directors.computeIfAbsent(directorId, id -> new DirectorFilms());
+
+        directorFilms.byYear.add(toYearKey(filmId, entry));
+        directorFilms.byLikes.add(toLikesKey(filmId, entry));
+    }
+
+    private void removeDirector(int filmId, FilmEntry entry, int directorId) {
+        if (!entry.directorIds.remove(directorId)) {
+            return;
+        }
+
+        DirectorFilms directorFilms = directors.get(directorId);
+
+        directorFilms.byYear.remove(toYearKey(filmId, entry));
+        directorFilms.byLikes.remove(toLikesKey(filmId, entry));
+
+        if (directorFilms.byYear.isEmpty()) {
+            directors.remove(directorId);
+        }
+    }
+
+    private void forEachDirector(FilmEntry entry, Consumer<DirectorFilms> action) {
+        entry.directorIds.forEach(directorId -> action.accept(directors.get(directorId)));
+    }
+
+    // старшие 32 бита ключа - год или минус число лайков, младшие - id фильма
+    private static long toYearKey(int filmId, FilmEntry entry) {
+        return ((long) entry.year << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private static long toLikesKey(int filmId, FilmEntry entry) {
+        return ((long) -entry.likes << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private static int toFilmId(long key) {
+        return (int) key;
+    }
+
+    private static int toYear(Date releaseDate) {
+        return Objects.isNull(releaseDate) ? NO_YEAR : releaseDate.toLocalDate().getYear();
+    }
+
+    private static class FilmEntry {
+        private final Set<Integer> directorIds = new HashSet<>();
+        private int year;
+        private int likes;
+
+        FilmEntry(int year, int likes) {
+            this.year = year;
+            this.likes = likes;
+        }
+    }
+
+    private static class PendingLoad {
+        private int loaders;
+        private long changes;
+    }
+
+    private static class DirectorFilms {
+        private final NavigableSet<Long> byYear = new TreeSet<>();
+        private final NavigableSet<Long> byLikes = new TreeSet<>();
+    }
+}
@@ -2,90 +2,42 @@ package ru.yandex.practicum.filmorate.storage.filmDirector;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.model.Director;
-import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.storage.director.DirectorMapper;
 
 import java.sql.PreparedStatement;
-import java.util.*;
+import java.util.Collection;
 
 @Slf4j
 @Component
 @AllArgsConstructor
 public class FilmDirectorDbStorage implements FilmDirectorStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final DirectorFilmIndex directorFilmIndex;
 
     @Override
-    public void setFilmDirectors(Collection<Director> directors, Integer filmId) {
-        if (Objects.isNull(directors) || directors.isEmpty()) {
-            return;
-        }
-
-        String sqlQuery = "insert into film_directors(director_id, film_id) " +
-                "values ( ?, ? )";
-
-        try {
-            jdbcTemplate.batchUpdate(
-                    sqlQuery, directors, directors.size(), (PreparedStatement ps, Director director) -> {
-                        ps.setLong(1, director.getId());
-                        ps.setLong(2, filmId);
-                    });
-        }
-        catch (DataIntegrityViolationException e) {
-            log.error(e.getMessage());
-        }
-
-    }
-
-    @Override
-    public Collection<Director> getFilmDirectors(Integer filmId) {
-        String sqlQuery = "select d.* " +
-                "from film_directors fd " +
-                "join directors d on d.director_id = fd.director_id " +
+    public void deleteFilmDirectors(Integer filmId) {
+        String sqlQuery = "delete from film_directors " +
                 "where film_id = ?";
 
-        return jdbcTemplate.query(sqlQuery, new DirectorMapper(), filmId);
+        jdbcTemplate.update(sqlQuery, filmId);
+        directorFilmIndex.removeFilm(filmId);
     }
 
     @Override
-    public Map<Integer, Collection<Director>> getFilmDirectors(Collection<Film> films) {
-        Map<Integer, Collection<Director>> directorsByFilmId = new HashMap<>();
-
-        String inSql = String.join(",", Collections.nCopies(films.size(), "?"));
-        String sqlQuery = "select fd.film_id, d.* " +
-                "from film_directors fd " +
-                "join directors d on d.director_id = fd.director_id " +
-                "where film_id in (%s);";
-
-        DirectorMapper directorMapper = new DirectorMapper();
-
-        jdbcTemplate.query(
-                String.format(sqlQuery, inSql),
-                (rs, rowNum) -> {
-                    Integer filmId = rs.getInt("film_id");
-                    Director director = directorMapper.mapRow(rs, rowNum);
-                    Collection<Director> directors = directorsByFilmId.getOrDefault(filmId, new ArrayList<>());
-                    directors.add(director);
-
-                    return directorsByFilmId.put(
-                            filmId,
-                            directors
-                    );
-                },
-                films.stream().map(film -> Integer.toString(film.getId())).toArray()
-        );
-
-        return directorsByFilmId;
-    }
+    public void deleteFilmDirectors(Integer filmId, Collection<Integer> directorIds) {
+        if (directorIds.isEmpty()) {
+            return;
+        }
 
-    @Override
-    public void deleteFilmDirectors(Integer filmId) {
         String sqlQuery = "delete from film_directors " +
-                "where film_id = ?";
-
-        jdbcTemplate.update(sqlQuery, filmId);
+                "where film_id = ? and director_id = ?";
+
+        jdbcTemplate.batchUpdate(
+                sqlQuery, directorIds, directorIds.size(), (PreparedStatement ps, Integer directorId) -> {
+                    ps.setInt(1, filmId);
+                    ps.setInt(2, directorId);
+                });
+        directorFilmIndex.removeFilmDirectors(filmId, directorIds);
     }
 }
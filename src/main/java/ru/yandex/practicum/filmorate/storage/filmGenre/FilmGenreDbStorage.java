@@ -5,15 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreMapper;
 
-import java.util.ArrayList;
+import java.sql.PreparedStatement;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -34,14 +28,6 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
         }
     }
 
-    @Override
-    public Collection<Genre> getAllFilmGenresById(Integer filmId) {
-        final String sql = "select g.id as id, name from film_genres fg left join genres g on " +
-                "fg.genre_id = g.id where film_id = ?";
-
-        return jdbcTemplate.query(sql, new GenreMapper(), filmId);
-    }
-
     @Override
     public void deleteAllFilmGenresById(Integer filmId) {
         final String sql = "delete from film_genres where film_id = ?";
@@ -50,22 +36,16 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
     }
 
     @Override
-    public Map<Integer, Collection<Genre>> getAllFilmGenres(Collection<Film> films) {
-        final String sql = "select fg.film_id as film_id, g.id as genre_id, g.name as name from film_genres fg " +
-                "left join genres g on fg.genre_id = g.id where fg.film_id in (%s)";
-
-        Map<Integer, Collection<Genre>> filmGenresMap = new HashMap<>();
-        Collection<String> ids = films.stream().map(film -> String.valueOf(film.getId())).collect(Collectors.toList());
-
-        jdbcTemplate.query(String.format(sql, String.join(",", ids)), rs -> {
-            Genre genre = new Genre(rs.getInt("genre_id"), rs.getString("name"));
+    public void deleteFilmGenres(Integer filmId, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
 
-            Integer filmId = rs.getInt("film_id");
+        final String sql = "delete from film_genres where film_id = ? and genre_id = ?";
 
-            filmGenresMap.putIfAbsent(filmId, new ArrayList<>());
-            filmGenresMap.get(filmId).add(genre);
+        jdbcTemplate.batchUpdate(sql, genreIds, genreIds.size(), (PreparedStatement ps, Integer genreId) -> {
+            ps.setInt(1, filmId);
+            ps.setInt(2, genreId);
         });
-
-        return filmGenresMap;
     }
 }
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.storage.filmReview;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.exception.ReviewValidationException;
+import ru.yandex.practicum.filmorate.model.Review;
+
+// позиция в выдаче по (useful desc, review_id), в запросе передаётся как "useful:reviewId"
+@Value
+public class ReviewCursor {
+
+    private static final String SEPARATOR = ":";
+
+    int useful;
+    int reviewId;
+
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.getUseful(), review.getReviewId());
+    }
+
+    public static ReviewCursor parse(String cursor) {
+        String[] parts = cursor.split(SEPARATOR);
+
+        try {
+            if (parts.length == 2) {
+                return new ReviewCursor(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+            }
+        }
+        catch (NumberFormatException ignored) {
+        }
+
+        throw new ReviewValidationException("Некорректный курсор отзывов: " + cursor);
+    }
+
+    @Override
+    public String toString() {
+        return useful + SEPARATOR + reviewId;
+    }
+}
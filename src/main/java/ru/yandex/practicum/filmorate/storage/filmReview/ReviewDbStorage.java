@@ -7,8 +7,10 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewUsefulBuffer;
 
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -19,21 +21,30 @@ public class ReviewDbStorage implements ReviewStorage {
 
     private static final String GET_REVIEW_BASE_QUERY =
             "SELECT review_id, film_id, user_id, useful, is_positive, content FROM reviews ";
-    private static final String GET_ALL_REVIEWS = GET_REVIEW_BASE_QUERY + " ORDER BY useful DESC";
+    // при равной стоимости H2 может выбрать индекс внешнего ключа по film_id и сортировать выборку
+    private static final String GET_FILM_REVIEW_BASE_QUERY =
+            "SELECT review_id, film_id, user_id, useful, is_positive, content FROM reviews " +
+            "USE INDEX (reviews_film_useful_idx) ";
     private static final String GET_REVIEW_BY_ID_QUERY =
             GET_REVIEW_BASE_QUERY + " WHERE review_id = ?";
-    private static final String GET_REVIEW_BY_FILM_ID_QUERY =
-            GET_REVIEW_BASE_QUERY + " WHERE film_id = ? ORDER BY useful DESC";
+    private static final String REVIEW_BY_FILM_ID_CONDITION = "film_id = ?";
+    // useful <= ? задаёт границу диапазона по индексу, OR по курсору H2 как границу не использует
+    private static final String REVIEW_AFTER_CURSOR_CONDITION =
+            "useful <= ? AND (useful < ? OR (useful = ? AND review_id > ?))";
+    // порядок повторяет столбцы индекса целиком, иначе H2 сортирует выборку, а не читает индекс по порядку
+    private static final String REVIEW_PAGE_ORDER = " ORDER BY useful DESC, review_id LIMIT ?";
+    private static final String REVIEW_FILM_PAGE_ORDER = " ORDER BY film_id, useful DESC, review_id LIMIT ?";
     private static final String SAVE_REVIEW_QUERY =
             "INSERT INTO reviews (film_id, user_id, useful, is_positive, content) VALUES (?, ?, ?, ?, ?)";
     private static final String UPDATE_REVIEW_QUERY =
-            "UPDATE reviews SET useful = ?, is_positive = ?, content = ? WHERE review_id = ?";
+            "UPDATE reviews SET is_positive = ?, content = ? WHERE review_id = ?";
     private static final String DELETE_REVIEW_BY_ID_QUERY =
             "DELETE FROM reviews WHERE review_id = ?";
     private static final String CHECK_REVIEW_EXISTS_BY_ID_QUERY =
             "SELECT EXISTS(SELECT review_id FROM reviews WHERE review_id = ?) isExists";
     private final JdbcTemplate template;
     private final ReviewMapper reviewMapper;
+    private final ReviewUsefulBuffer usefulBuffer;
 
     @Override
     public Review add(Review review) {
@@ -57,7 +68,6 @@ public class ReviewDbStorage implements ReviewStorage {
     public Review update(Review filmReview) {
         template.update(
                 UPDATE_REVIEW_QUERY,
-                filmReview.getUseful(),
                 filmReview.getIsPositive(),
                 filmReview.getContent(),
                 filmReview.getReviewId()
@@ -72,20 +82,44 @@ public class ReviewDbStorage implements ReviewStorage {
 
     @Override
     public Review getById(Integer id) {
-        return template.query(GET_REVIEW_BY_ID_QUERY, reviewMapper, id)
+        return usefulBuffer.read(() -> template.query(GET_REVIEW_BY_ID_QUERY, reviewMapper, id)
                 .stream()
                 .findAny()
-                .orElse(null);
+                .map(this::addPendingUseful)
+                .orElse(null));
     }
 
     @Override
-    public List<Review> getByFilmId(Integer id) {
-        return template.query(GET_REVIEW_BY_FILM_ID_QUERY, reviewMapper, id);
+    public List<Review> getPage(Integer filmId, ReviewCursor after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        if (Objects.nonNull(filmId)) {
+            conditions.add(REVIEW_BY_FILM_ID_CONDITION);
+            params.add(filmId);
+        }
+
+        if (Objects.nonNull(after)) {
+            conditions.add(REVIEW_AFTER_CURSOR_CONDITION);
+            params.add(after.getUseful());
+            params.add(after.getUseful());
+            params.add(after.getUseful());
+            params.add(after.getReviewId());
+        }
+
+        params.add(limit);
+
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        String base = Objects.nonNull(filmId) ? GET_FILM_REVIEW_BASE_QUERY : GET_REVIEW_BASE_QUERY;
+        String order = Objects.nonNull(filmId) ? REVIEW_FILM_PAGE_ORDER : REVIEW_PAGE_ORDER;
+
+        return template.query(base + where + order, reviewMapper, params.toArray());
     }
 
-    @Override
-    public List<Review> getAll() {
-        return template.query(GET_ALL_REVIEWS, reviewMapper);
+    private Review addPendingUseful(Review review) {
+        review.setUseful(review.getUseful() + usefulBuffer.getPending(review.getReviewId()));
+
+        return review;
     }
 
     @Override
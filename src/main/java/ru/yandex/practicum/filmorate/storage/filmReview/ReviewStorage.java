@@ -14,9 +14,7 @@ public interface ReviewStorage {
 
     Review getById(Integer id);
 
-    List<Review> getByFilmId(Integer id);
-
-    List<Review> getAll();
+    List<Review> getPage(Integer filmId, ReviewCursor after, int limit);
 
     boolean isExists(Integer id);
 
@@ -2,65 +2,103 @@ package ru.yandex.practicum.filmorate.storage.filmReviewRating;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @RequiredArgsConstructor
 @Component("ReviewRatingDbStorage")
 public class ReviewRatingDbStorage implements ReviewRatingStorage {
 
-    private static final String MERGE_REVIEW_RATING_QUERY =
-            "MERGE INTO review_ratings (review_id, user_id, is_positive) VALUES (?, ?, ?)";
-    private static final String DELETE_REVIEW_RATING_BY_REVIEW_ID_USER_ID =
-            "DELETE FROM review_ratings WHERE review_id = ? AND user_id = ?";
-    private static final String GET_REVIEW_USEFUL_SCORE_ON_REVIEW_ID =
-            "SELECT SUM(CASE WHEN is_positive = TRUE THEN 1 ELSE -1 END) useful FROM review_ratings WHERE review_id = ?";
-    private static final String UPDATE_REVIEW_USEFUL_SCORE_ON_USEFUL_SCORE_REVIEW_ID =
-            "UPDATE reviews SET useful = ? WHERE review_id = ?";
+    private static final String INSERT_REVIEW_RATING_QUERY =
+            "INSERT INTO review_ratings (review_id, user_id, is_positive) VALUES (?, ?, ?)";
+    private static final String FLIP_REVIEW_RATING_QUERY =
+            "UPDATE review_ratings SET is_positive = ? WHERE review_id = ? AND user_id = ? AND is_positive = ?";
+    private static final String DELETE_REVIEW_RATING_QUERY =
+            "DELETE FROM review_ratings WHERE review_id = ? AND user_id = ? AND is_positive = ?";
+    private static final String RECONCILE_REVIEW_USEFUL_QUERY =
+            "UPDATE reviews r SET useful = (SELECT COALESCE(SUM(CASE WHEN rr.is_positive THEN 1 ELSE -1 END), 0) " +
+            "FROM review_ratings rr WHERE rr.review_id = r.review_id) " +
+            "WHERE useful IS NULL OR useful <> (SELECT COALESCE(SUM(CASE WHEN rr.is_positive THEN 1 ELSE -1 END), 0) " +
+            "FROM review_ratings rr WHERE rr.review_id = r.review_id)";
     private final JdbcTemplate template;
-    private final ReviewRatingMapper reviewRatingMapper;
+    private final ReviewUsefulBuffer usefulBuffer;
 
     @Override
+    @Transactional
     public void addLikeToFilmReview(Integer reviewId, Integer userId) {
-        addUserReviewRating(reviewId, userId, Boolean.TRUE);
+        addUserReviewRating(reviewId, userId, true);
     }
 
     @Override
+    @Transactional
     public void addDislikeToFilmReview(Integer reviewId, Integer userId) {
-        addUserReviewRating(reviewId, userId, Boolean.FALSE);
+        addUserReviewRating(reviewId, userId, false);
     }
 
     @Override
+    @Transactional
     public void deleteLikeFromFilmReview(Integer reviewId, Integer userId) {
-        deleteUserReviewRating(reviewId, userId);
+        deleteUserReviewRating(reviewId, userId, true);
     }
 
     @Override
+    @Transactional
     public void deleteDislikeFromFilmReview(Integer reviewId, Integer userId) {
-        deleteUserReviewRating(reviewId, userId);
+        deleteUserReviewRating(reviewId, userId, false);
     }
 
-    private void addUserReviewRating(Integer reviewId, Integer userId, Boolean isPositive) {
-        template.update(MERGE_REVIEW_RATING_QUERY, reviewId, userId, isPositive);
-        updateReviewUsefulScore(reviewId);
+    @Override
+    @Transactional
+    public int reconcileUsefulScores() {
+        return usefulBuffer.reconcile(() -> template.update(RECONCILE_REVIEW_USEFUL_QUERY));
+    }
+
+    private void addUserReviewRating(Integer reviewId, Integer userId, boolean isPositive) {
+        int vote = toVote(isPositive);
+
+        if (flipUserReviewRating(reviewId, userId, isPositive)) {
+            return;
+        }
+
+        try {
+            template.update(INSERT_REVIEW_RATING_QUERY, reviewId, userId, isPositive);
+            addUsefulDelta(reviewId, vote);
+        }
+        catch (DuplicateKeyException e) {
+            // параллельный запрос успел вставить оценку: если она противоположная, меняем её
+            if (!flipUserReviewRating(reviewId, userId, isPositive)) {
+                log.debug("Пользователь с id = {} уже оценил отзыв с id = {} так же", userId, reviewId);
+            }
+        }
     }
 
-    private void deleteUserReviewRating(Integer reviewId, Integer userId) {
-        template.update(DELETE_REVIEW_RATING_BY_REVIEW_ID_USER_ID, reviewId, userId);
-        updateReviewUsefulScore(reviewId);
+    private boolean flipUserReviewRating(Integer reviewId, Integer userId, boolean isPositive) {
+        if (template.update(FLIP_REVIEW_RATING_QUERY, isPositive, reviewId, userId, !isPositive) == 0) {
+            return false;
+        }
+
+        addUsefulDelta(reviewId, 2 * toVote(isPositive));
+
+        return true;
     }
 
-    private void updateReviewUsefulScore(Integer reviewId) {
-        Integer usefulScore = getReviewUsefulScore(reviewId);
-        template.update(UPDATE_REVIEW_USEFUL_SCORE_ON_USEFUL_SCORE_REVIEW_ID, usefulScore, reviewId);
+    private void deleteUserReviewRating(Integer reviewId, Integer userId, boolean isPositive) {
+        for (boolean positive : new boolean[]{isPositive, !isPositive}) {
+            if (template.update(DELETE_REVIEW_RATING_QUERY, reviewId, userId, positive) != 0) {
+                addUsefulDelta(reviewId, -toVote(positive));
+                return;
+            }
+        }
     }
 
-    private Integer getReviewUsefulScore(Integer reviewId) {
-        return template.query(GET_REVIEW_USEFUL_SCORE_ON_REVIEW_ID, reviewRatingMapper, reviewId)
-                .stream()
-                .findAny()
-                .orElse(null);
+    private void addUsefulDelta(Integer reviewId, int delta) {
+        usefulBuffer.addOnCommit(reviewId, delta);
     }
 
+    private static int toVote(boolean isPositive) {
+        return isPositive ? 1 : -1;
+    }
 }
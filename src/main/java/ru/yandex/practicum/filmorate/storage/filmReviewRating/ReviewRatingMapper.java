@@ -1,18 +0,0 @@
-package ru.yandex.practicum.filmorate.storage.filmReviewRating;
-
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.stereotype.Repository;
-
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-
-@Repository
-public class ReviewRatingMapper implements RowMapper<Integer> {
-
-    @Override
-    public Integer mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return rs.getInt("useful");
-    }
-
-}
@@ -10,4 +10,6 @@ public interface ReviewRatingStorage {
 
     void deleteDislikeFromFilmReview(Integer reviewId, Integer userId);
 
+    int reconcileUsefulScores();
+
 }
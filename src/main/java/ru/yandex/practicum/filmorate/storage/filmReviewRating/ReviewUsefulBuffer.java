@@ -0,0 +1,230 @@
+package ru.yandex.practicum.filmorate.storage.filmReviewRating;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class ReviewUsefulBuffer {
+
+    private static final String ADD_REVIEW_USEFUL_DELTA_QUERY =
+            "UPDATE reviews SET useful = useful + ? WHERE review_id = ?";
+
+    private final JdbcTemplate template;
+    private final Stripe[] stripes;
+    private final TransactionTemplate flushTransaction;
+    // голос держит чтение от коммита до добавления дельты, чтобы пересчёт не учёл его дважды
+    private final ReadWriteLock voteLock = new ReentrantReadWriteLock();
+    // между коммитом batch и снятием записываемых дельт чтение посчитало бы их дважды
+    private final StampedLock batchCommitLock = new StampedLock();
+
+    public ReviewUsefulBuffer(JdbcTemplate template, PlatformTransactionManager transactionManager) {
+        this.template = template;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 2];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(int reviewId, int delta) {
+        getStripe().add(reviewId, delta);
+    }
+
+    public void addOnCommit(int reviewId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(reviewId, delta);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                voteLock.readLock().lock();
+                committing = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!committing) {
+                    return;
+                }
+
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        add(reviewId, delta);
+                    }
+                }
+                finally {
+                    voteLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    public int getPending(int reviewId) {
+        int pending = 0;
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                pending += stripe.deltas.getOrDefault(reviewId, 0);
+
+                if (Objects.nonNull(stripe.flushing)) {
+                    pending += stripe.flushing.getOrDefault(reviewId, 0);
+                }
+            }
+        }
+
+        return pending;
+    }
+
+    public <T> T read(Supplier<T> query) {
+        long stamp = batchCommitLock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            T result = query.get();
+
+            if (batchCommitLock.validate(stamp)) {
+                return result;
+            }
+        }
+
+        stamp = batchCommitLock.readLock();
+
+        try {
+            return query.get();
+        }
+        finally {
+            batchCommitLock.unlockRead(stamp);
+        }
+    }
+
+    public <T> T reconcile(Supplier<T> query) {
+        voteLock.writeLock().lock();
+
+        try {
+            flush();
+            return query.get();
+        }
+        finally {
+            voteLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${filmorate.reviews.useful-flush-interval-ms:10}")
+    public synchronized void flush() {
+        Map<Integer, Integer> deltas = new HashMap<>();
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.deltas.isEmpty()) {
+                    continue;
+                }
+
+                stripe.flushing = stripe.deltas;
+                stripe.deltas = new HashMap<>();
+                stripe.flushing.forEach((reviewId, delta) -> deltas.merge(reviewId, delta, Integer::sum));
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> updates = new ArrayList<>(deltas.size());
+
+        deltas.entrySet().stream().filter(entry -> entry.getValue() != 0).forEach(updates::add);
+
+        if (updates.isEmpty()) {
+            completeFlush(false);
+            return;
+        }
+
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    private long stamp;
+
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        stamp = batchCommitLock.writeLock();
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        try {
+                            completeFlush(status == STATUS_COMMITTED);
+                        }
+                        finally {
+                            if (stamp != 0) {
+                                batchCommitLock.unlockWrite(stamp);
+                            }
+                        }
+                    }
+                });
+                template.batchUpdate(ADD_REVIEW_USEFUL_DELTA_QUERY, updates, updates.size(),
+                        (PreparedStatement ps, Map.Entry<Integer, Integer> update) -> {
+                            ps.setInt(1, update.getValue());
+                            ps.setInt(2, update.getKey());
+                        });
+            });
+            log.debug("Записана полезность {} отзывов", updates.size());
+        }
+        catch (DataAccessException e) {
+            log.warn("Не удалось записать полезность {} отзывов, повтор при следующем сбросе: {}",
+                    updates.size(), e.getMessage());
+            completeFlush(false);
+        }
+    }
+
+    private void completeFlush(boolean committed) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (Objects.isNull(stripe.flushing)) {
+                    continue;
+                }
+
+                if (!committed) {
+                    stripe.flushing.forEach((reviewId, delta) -> stripe.deltas.merge(reviewId, delta, Integer::sum));
+                }
+
+                stripe.flushing = null;
+            }
+        }
+    }
+
+    private Stripe getStripe() {
+        return stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+    }
+
+    private static class Stripe {
+
+        private Map<Integer, Integer> deltas = new HashMap<>();
+        private Map<Integer, Integer> flushing;
+
+        private synchronized void add(int reviewId, int delta) {
+            deltas.merge(reviewId, delta, Integer::sum);
+        }
+    }
+}
@@ -9,12 +9,14 @@ import org.springframework.stereotype.Component;
 public class FriendshipDbStorage implements FriendshipStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final FriendshipGraph friendshipGraph;
 
     @Override
     public void addFriend(Integer userId, Integer friendId) {
         final String sql = "insert into friendships (user_id, friend_id) values (?, ?)";
 
         jdbcTemplate.update(sql, userId, friendId);
+        friendshipGraph.addFriend(userId, friendId);
     }
 
     @Override
@@ -22,5 +24,22 @@ public class FriendshipDbStorage implements FriendshipStorage {
         final String sql = "delete from friendships where user_id = ? and friend_id = ?";
 
         jdbcTemplate.update(sql, userId, friendId);
+        friendshipGraph.deleteFriend(userId, friendId);
+    }
+
+    @Override
+    public int[] getFriendIds(Integer userId) {
+        final String sql = "select friend_id from friendships where user_id = ? order by friend_id";
+
+        return friendshipGraph.getFriendIds(userId).orElseGet(() ->
+                jdbcTemplate.queryForList(sql, Integer.class, userId).stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Override
+    public int[] getFollowerIds(Integer userId) {
+        final String sql = "select user_id from friendships where friend_id = ? order by user_id";
+
+        return friendshipGraph.getFollowerIds(userId).orElseGet(() ->
+                jdbcTemplate.queryForList(sql, Integer.class, userId).stream().mapToInt(Integer::intValue).toArray());
     }
 }
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.storage.friendship;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipGraph {
+
+    private final JdbcTemplate jdbcTemplate;
+    // массивы не меняются на месте, а заменяются копией, поэтому чтение идёт без блокировок
+    private final Map<Integer, int[]> friendIds = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> followerIds = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        final String sql = "select user_id, friend_id from friendships order by user_id, friend_id";
+
+        Map<Integer, List<Integer>> friends = new HashMap<>();
+        Map<Integer, List<Integer>> followers = new HashMap<>();
+
+        jdbcTemplate.query(sql, rs -> {
+            int userId = rs.getInt("user_id");
+            int friendId = rs.getInt("friend_id");
+
+            friends.computeIfAbsent(userId, id -> new ArrayList<>()).add(friendId);
+            followers.computeIfAbsent(friendId, id -> new ArrayList<>()).add(userId);
+        });
+
+        friendIds.clear();
+        followerIds.clear();
+        friends.forEach((userId, ids) -> friendIds.put(userId, toSortedArray(ids)));
+        followers.forEach((userId, ids) -> followerIds.put(userId, toSortedArray(ids)));
+
+        loaded = true;
+        log.info("Граф дружбы построен, пользователей с друзьями: {}", friendIds.size());
+    }
+
+    public Optional<int[]> getFriendIds(int userId) {
+        return loaded ? Optional.of(friendIds.getOrDefault(userId, SortedIntArrays.EMPTY)) : Optional.empty();
+    }
+
+    public Optional<int[]> getFollowerIds(int userId) {
+        return loaded ? Optional.of(followerIds.getOrDefault(userId, SortedIntArrays.EMPTY)) : Optional.empty();
+    }
+
+    public Optional<int[]> getCommonFriendIds(int userId, int otherUserId) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        return Optional.of(SortedIntArrays.intersect(
+                friendIds.getOrDefault(userId, SortedIntArrays.EMPTY),
+                friendIds.getOrDefault(otherUserId, SortedIntArrays.EMPTY)
+        ));
+    }
+
+    public synchronized void addFriend(int userId, int friendId) {
+        friendIds.put(userId, SortedIntArrays.insert(friendIds.getOrDefault(userId, SortedIntArrays.EMPTY), friendId));
+        followerIds.put(friendId, SortedIntArrays.insert(followerIds.getOrDefault(friendId, SortedIntArrays.EMPTY),
+                userId));
+    }
+
+    public synchronized void deleteFriend(int userId, int friendId) {
+        removeEdge(friendIds, userId, friendId);
+        removeEdge(followerIds, friendId, userId);
+    }
+
+    public synchronized void removeUser(int userId) {
+        int[] friends = friendIds.getOrDefault(userId, SortedIntArrays.EMPTY);
+        int[] followers = followerIds.getOrDefault(userId, SortedIntArrays.EMPTY);
+
+        for (int friendId : friends) {
+            deleteFriend(userId, friendId);
+        }
+
+        for (int followerId : followers) {
+            deleteFriend(followerId, userId);
+        }
+    }
+
+    private static void removeEdge(Map<Integer, int[]> edges, int from, int to) {
+        int[] ids = edges.get(from);
+
+        if (Objects.isNull(ids)) {
+            return;
+        }
+
+        ids = SortedIntArrays.remove(ids, to);
+
+        if (ids.length == 0) {
+            edges.remove(from);
+        }
+        else {
+            edges.put(from, ids);
+        }
+    }
+
+    private static int[] toSortedArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+}
@@ -4,4 +4,8 @@ public interface FriendshipStorage {
     void addFriend(Integer userId, Integer friendId);
 
     void deleteFriend(Integer userId, Integer friendId);
+
+    int[] getFriendIds(Integer userId);
+
+    int[] getFollowerIds(Integer userId);
 }
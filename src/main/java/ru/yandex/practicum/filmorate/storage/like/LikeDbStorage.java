@@ -5,31 +5,64 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class LikeDbStorage implements LikeStorage {
 
+    private static final String UPDATE_LIKES_COUNT_SQL = "update films set likes_count = likes_count + ? where id = ?";
     private final JdbcTemplate jdbcTemplate;
 
     @Override
-    public void addLikeToFilm(Integer filmId, Integer userId) {
+    @Transactional
+    public boolean addLikeToFilm(Integer filmId, Integer userId) {
         final String sql = "insert into likes (film_id, user_id) values (?, ?)";
 
         try {
             jdbcTemplate.update(sql, filmId, userId);
+            jdbcTemplate.update(UPDATE_LIKES_COUNT_SQL, 1, filmId);
             log.info("Пользователь с id = {} поставил лайк фильму с id = {}", userId, filmId);
+
+            return true;
         }
         catch (DuplicateKeyException ignored) {
             log.warn("Пользователь с id = {} уже ставил лайк фильму с id = {}", userId, filmId);
+
+            return false;
         }
     }
 
     @Override
-    public void deleteLikeFromFilm(Integer filmId, Integer userId) {
+    @Transactional
+    public boolean deleteLikeFromFilm(Integer filmId, Integer userId) {
         final String sql = "delete from likes where film_id = ? and user_id = ?";
 
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+
+        jdbcTemplate.update(UPDATE_LIKES_COUNT_SQL, -1, filmId);
+
+        return true;
+    }
+
+    @Override
+    public Collection<Integer> getUserLikedFilmIds(Integer userId) {
+        final String sql = "select film_id from likes where user_id = ?";
+
+        return jdbcTemplate.queryForList(sql, Integer.class, userId);
+    }
+
+    @Override
+    @Transactional
+    public int reconcileLikeCounters() {
+        final String sql = "update films f set likes_count = (select count(*) from likes l where l.film_id = f.id) " +
+                "where likes_count <> (select count(*) from likes l where l.film_id = f.id)";
+
+        return jdbcTemplate.update(sql);
     }
 }
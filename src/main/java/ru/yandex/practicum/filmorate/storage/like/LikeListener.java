@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+public interface LikeListener {
+
+    void onLikeAdded(int filmId, int userId);
+
+    void onLikeRemoved(int filmId, int userId);
+}
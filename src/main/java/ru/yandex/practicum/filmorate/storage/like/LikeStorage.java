@@ -1,8 +1,14 @@
 package ru.yandex.practicum.filmorate.storage.like;
 
+import java.util.Collection;
+
 public interface LikeStorage {
 
-    void addLikeToFilm(Integer filmId, Integer userId);
+    boolean addLikeToFilm(Integer filmId, Integer userId);
+
+    boolean deleteLikeFromFilm(Integer filmId, Integer userId);
+
+    Collection<Integer> getUserLikedFilmIds(Integer userId);
 
-    void deleteLikeFromFilm(Integer filmId, Integer userId);
+    int reconcileLikeCounters();
 }
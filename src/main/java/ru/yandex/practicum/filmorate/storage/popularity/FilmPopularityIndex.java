@@ -0,0 +1,237 @@
+package ru.yandex.practicum.filmorate.storage.popularity;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.like.LikeListener;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmPopularityIndex implements LikeListener {
+
+    private static final int ANY = 0;
+    private final JdbcTemplate jdbcTemplate;
+    private final int bucketCapacity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, FilmEntry> films = new HashMap<>();
+    private final Map<Long, PopularityBucket> buckets = new HashMap<>();
+    private volatile boolean loaded;
+
+    public FilmPopularityIndex(JdbcTemplate jdbcTemplate,
+                               @Value("${filmorate.popularity.bucket-capacity:1000}") int bucketCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bucketCapacity = bucketCapacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        final String filmsSql = "select f.id, f.release_date, count(l.user_id) as likes from films f " +
+                "left join likes l on f.id = l.film_id group by f.id, f.release_date";
+        final String genresSql = "select film_id, genre_id from film_genres";
+
+        lock.writeLock().lock();
+
+        try {
+            films.clear();
+            buckets.clear();
+
+            Map<Integer, Set<Integer>> filmGenres = new HashMap<>();
+
+            jdbcTemplate.query(genresSql, rs -> {
+                filmGenres.computeIfAbsent(rs.getInt("film_id"), id -> new HashSet<>()).add(rs.getInt("genre_id"));
+            });
+            jdbcTemplate.query(filmsSql, rs -> {
+                int filmId = rs.getInt("id");
+                Date releaseDate = rs.getDate("release_date");
+                FilmEntry entry = new FilmEntry(
+                        Objects.isNull(releaseDate) ? ANY : releaseDate.toLocalDate().getYear(),
+                        filmGenres.getOrDefault(filmId, Collections.emptySet()),
+                        rs.getInt("likes")
+                );
+
+                putEntry(filmId, entry);
+            });
+
+            loaded = true;
+            log.info("Индекс популярности построен, фильмов: {}, корзин: {}", films.size(), buckets.size());
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<List<Integer>> getPopularFilmIds(int count, Integer genreId, Integer year) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+
+        try {
+            PopularityBucket bucket = buckets.get(toBucketKey(
+                    Objects.isNull(genreId) ? ANY : genreId,
+                    Objects.isNull(year) ? ANY : year
+            ));
+
+            return Objects.isNull(bucket) ? Optional.of(Collections.emptyList()) : bucket.top(count);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getLikesCount(int filmId) {
+        lock.readLock().lock();
+
+        try {
+            FilmEntry entry = films.get(filmId);
+
+            return Objects.isNull(entry) ? 0 : entry.likes;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putFilm(Film film) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry previous = films.get(film.getId());
+
+            if (Objects.nonNull(previous)) {
+                removeEntry(film.getId(), previous);
+            }
+
+            putEntry(film.getId(), new FilmEntry(
+                    Objects.isNull(film.getReleaseDate()) ? ANY : film.getReleaseDate().getYear(),
+                    getGenreIds(film.getGenres()),
+                    Objects.isNull(previous) ? 0 : previous.likes
+            ));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry entry = films.get(filmId);
+
+            if (Objects.nonNull(entry)) {
+                removeEntry(filmId, entry);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(int filmId, int userId) {
+        changeLikes(filmId, 1);
+    }
+
+    @Override
+    public void onLikeRemoved(int filmId, int userId) {
+        changeLikes(filmId, -1);
+    }
+
+    private void changeLikes(int filmId, int delta) {
+        lock.writeLock().lock();
+
+        try {
+            FilmEntry entry = films.get(filmId);
+
+            if (Objects.isNull(entry)) {
+                return;
+            }
+
+            int oldLikes = entry.likes;
+
+            entry.likes = Math.max(0, oldLikes + delta);
+            getBucketKeys(entry).forEach(key -> buckets.get(key).update(filmId, oldLikes, entry.likes));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putEntry(int filmId, FilmEntry entry) {
+        films.put(filmId, entry);
+        getBucketKeys(entry).forEach(key -> buckets
+                .computeIfAbsent(key, k -> new PopularityBucket(bucketCapacity))
+                .offer(filmId, entry.likes));
+    }
+
+    private void removeEntry(int filmId, FilmEntry entry) {
+        films.remove(filmId);
+        getBucketKeys(entry).forEach(key -> buckets.get(key).remove(filmId, entry.likes));
+    }
+
+    private static Collection<Long> getBucketKeys(FilmEntry entry) {
+        Collection<Long> keys = new HashSet<>();
+
+        keys.add(toBucketKey(ANY, ANY));
+
+        if (entry.year != ANY) {
+            keys.add(toBucketKey(ANY, entry.year));
+        }
+
+        entry.genreIds.forEach(genreId -> {
+            keys.add(toBucketKey(genreId, ANY));
+
+            if (entry.year != ANY) {
+                keys.add(toBucketKey(genreId, entry.year));
+            }
+        });
+
+        return keys;
+    }
+
+    private static long toBucketKey(int genreId, int year) {
+        return ((long) genreId << 32) | (year & 0xFFFFFFFFL);
+    }
+
+    private static Set<Integer> getGenreIds(Collection<Genre> genres) {
+        Set<Integer> genreIds = new HashSet<>();
+
+        if (Objects.nonNull(genres)) {
+            genres.forEach(genre -> genreIds.add(genre.getId()));
+        }
+
+        return genreIds;
+    }
+
+    private static class FilmEntry {
+        private final int year;
+        private final Set<Integer> genreIds;
+        private int likes;
+
+        FilmEntry(int year, Set<Integer> genreIds, int likes) {
+            this.year = year;
+            this.genreIds = genreIds;
+            this.likes = likes;
+        }
+    }
+}
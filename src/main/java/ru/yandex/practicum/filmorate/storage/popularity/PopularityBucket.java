@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage.popularity;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+class PopularityBucket {
+
+    private static final int NOTHING_EVICTED = -1;
+    private final int capacity;
+    private final TreeSet<Long> entries = new TreeSet<>();
+    // число лайков вытесненных фильмов и сколько их с таким числом
+    private final TreeMap<Integer, Integer> evictedLikes = new TreeMap<>();
+
+    PopularityBucket(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(int filmId, int likes) {
+        entries.add(toKey(filmId, likes));
+
+        if (entries.size() > capacity) {
+            evictedLikes.merge(likesOf(entries.pollLast()), 1, Integer::sum);
+        }
+    }
+
+    void remove(int filmId, int likes) {
+        if (!entries.remove(toKey(filmId, likes))) {
+            evictedLikes.computeIfPresent(likes, (evicted, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    void update(int filmId, int oldLikes, int newLikes) {
+        remove(filmId, oldLikes);
+        offer(filmId, newLikes);
+    }
+
+    Optional<List<Integer>> top(int count) {
+        List<Integer> filmIds = new ArrayList<>(Math.max(0, Math.min(count, entries.size())));
+        Iterator<Long> iterator = entries.iterator();
+        int evictedLikesCeiling = evictedLikes.isEmpty() ? NOTHING_EVICTED : evictedLikes.lastKey();
+
+        while (filmIds.size() < count && iterator.hasNext()) {
+            long key = iterator.next();
+
+            if (evictedLikesCeiling != NOTHING_EVICTED && likesOf(key) <= evictedLikesCeiling) {
+                return Optional.empty();
+            }
+
+            filmIds.add(filmIdOf(key));
+        }
+
+        if (filmIds.size() < count && evictedLikesCeiling != NOTHING_EVICTED) {
+            return Optional.empty();
+        }
+
+        return Optional.of(filmIds);
+    }
+
+    private static long toKey(int filmId, int likes) {
+        return ((long) (Integer.MAX_VALUE - likes) << 32) | filmId;
+    }
+
+    private static int likesOf(long key) {
+        return Integer.MAX_VALUE - (int) (key >>> 32);
+    }
+
+    private static int filmIdOf(long key) {
+        return (int) key;
+    }
+}
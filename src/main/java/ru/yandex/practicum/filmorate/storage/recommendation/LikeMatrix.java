@@ -0,0 +1,254 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.like.LikeListener;
+import ru.yandex.practicum.filmorate.util.IntCounter;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LikeMatrix implements LikeListener {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, int[]> userFilmIds = new HashMap<>();
+    private final Map<Integer, int[]> filmUserIds = new HashMap<>();
+    private volatile boolean loaded;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        final String sql = "select film_id, user_id from likes order by film_id, user_id";
+
+        lock.writeLock().lock();
+
+        try {
+            userFilmIds.clear();
+            filmUserIds.clear();
+
+            Map<Integer, List<Integer>> userFilms = new HashMap<>();
+            Map<Integer, List<Integer>> filmUsers = new HashMap<>();
+
+            jdbcTemplate.query(sql, rs -> {
+                int filmId = rs.getInt("film_id");
+                int userId = rs.getInt("user_id");
+
+                userFilms.computeIfAbsent(userId, id -> new ArrayList<>()).add(filmId);
+                filmUsers.computeIfAbsent(filmId, id -> new ArrayList<>()).add(userId);
+            });
+            userFilms.forEach((userId, filmIds) ->
+                    userFilmIds.put(userId, filmIds.stream().mapToInt(Integer::intValue).toArray()));
+            filmUsers.forEach((filmId, userIds) ->
+                    filmUserIds.put(filmId, userIds.stream().mapToInt(Integer::intValue).toArray()));
+
+            loaded = true;
+            log.info("Матрица лайков построена, пользователей: {}, фильмов: {}", userFilmIds.size(), filmUserIds.size());
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Optional<List<Integer>> getRecommendedFilmIds(int userId, int neighbours, int limit) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+
+        try {
+            int[] filmIds = userFilmIds.get(userId);
+
+            if (Objects.isNull(filmIds)) {
+                return Optional.of(Collections.emptyList());
+            }
+
+            Map<Integer, Double> scores = new HashMap<>();
+
+            for (Neighbour neighbour : getNeighbours(userId, filmIds, neighbours)) {
+                for (int filmId : userFilmIds.get(neighbour.userId)) {
+                    if (!SortedIntArrays.contains(filmIds, filmId)) {
+                        scores.merge(filmId, neighbour.similarity, Double::sum);
+                    }
+                }
+            }
+
+            List<Integer> recommended = new ArrayList<>(scores.keySet());
+
+            recommended.sort(Comparator.<Integer>comparingDouble(scores::get).reversed().thenComparing(id -> id));
+
+            return Optional.of(recommended.size() > limit
+                    ? new ArrayList<>(recommended.subList(0, limit))
+                    : recommended);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<List<Integer>> getCommonFilmIds(int userId, int otherUserId) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+
+        try {
+            int[] likes = userFilmIds.get(userId);
+            int[] otherLikes = userFilmIds.get(otherUserId);
+
+            if (Objects.isNull(likes) || Objects.isNull(otherLikes)) {
+                return Optional.of(Collections.emptyList());
+            }
+
+            int[] common = SortedIntArrays.intersect(likes, otherLikes);
+            List<Integer> filmIds = new ArrayList<>(common.length);
+
+            for (int filmId : common) {
+                filmIds.add(filmId);
+            }
+
+            filmIds.sort(Comparator.<Integer>comparingInt(id -> filmUserIds.get(id).length).reversed()
+                    .thenComparing(id -> id));
+
+            return Optional.of(filmIds);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+
+        try {
+            int[] userIds = filmUserIds.remove(filmId);
+
+            if (Objects.nonNull(userIds)) {
+                for (int userId : userIds) {
+                    removeUserLike(userId, filmId);
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(int filmId, int userId) {
+        lock.writeLock().lock();
+
+        try {
+            userFilmIds.merge(userId, new int[]{filmId}, (ids, ignored) -> SortedIntArrays.insert(ids, filmId));
+            filmUserIds.merge(filmId, new int[]{userId}, (ids, ignored) -> SortedIntArrays.insert(ids, userId));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeRemoved(int filmId, int userId) {
+        lock.writeLock().lock();
+
+        try {
+            removeUserLike(userId, filmId);
+
+            int[] userIds = filmUserIds.get(filmId);
+
+            if (Objects.nonNull(userIds)) {
+                userIds = SortedIntArrays.remove(userIds, userId);
+
+                if (userIds.length == 0) {
+                    filmUserIds.remove(filmId);
+                }
+                else {
+                    filmUserIds.put(filmId, userIds);
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Neighbour> getNeighbours(int userId, int[] filmIds, int neighbours) {
+        IntCounter overlaps = new IntCounter(filmIds.length * 4);
+
+        for (int filmId : filmIds) {
+            for (int otherUserId : filmUserIds.getOrDefault(filmId, SortedIntArrays.EMPTY)) {
+                if (otherUserId != userId) {
+                    overlaps.increment(otherUserId);
+                }
+            }
+        }
+
+        PriorityQueue<Neighbour> top = new PriorityQueue<>(Comparator.comparingDouble(Neighbour::getSimilarity));
+
+        overlaps.forEach((otherUserId, overlap) -> {
+            int otherCount = userFilmIds.get(otherUserId).length;
+            double similarity = (double) overlap / (filmIds.length + otherCount - overlap);
+
+            if (otherCount > overlap && (top.size() < neighbours || top.peek().similarity < similarity)) {
+                top.offer(new Neighbour(otherUserId, similarity));
+
+                if (top.size() > neighbours) {
+                    top.poll();
+                }
+            }
+        });
+
+        return new ArrayList<>(top);
+    }
+
+    private void removeUserLike(int userId, int filmId) {
+        int[] filmIds = userFilmIds.get(userId);
+
+        if (Objects.isNull(filmIds)) {
+            return;
+        }
+
+        filmIds = SortedIntArrays.remove(filmIds, filmId);
+
+        if (filmIds.length == 0) {
+            userFilmIds.remove(userId);
+        }
+        else {
+            userFilmIds.put(userId, filmIds);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Neighbour {
+        private final int userId;
+        private final double similarity;
+    }
+}
@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.like.LikeListener;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class RecommendationDbStorage implements RecommendationStorage, LikeListener {
+
+    private static final String INVALIDATED_USERS_SQL = "select user_id from recommendation_invalidations " +
+            "where user_id between ? and ? and invalidated_at >= ?";
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Integer> getRecommendedFilmIds(Integer userId) {
+        final String sql = "select film_id from user_recommendations where user_id = ? order by position";
+
+        return jdbcTemplate.queryForList(sql, Integer.class, userId);
+    }
+
+    @Override
+    public void deleteRecommendations(Integer userId) {
+        final String sql = "delete from user_recommendations where user_id = ?";
+
+        jdbcTemplate.update(sql, userId);
+    }
+
+    @Override
+    public Collection<Integer> getLikingUserIds(RecommendationRange range) {
+        final String sql = "select distinct user_id from likes where user_id between ? and ? order by user_id";
+
+        return jdbcTemplate.queryForList(sql, Integer.class, range.getStart(), range.getEnd());
+    }
+
+    @Override
+    public Optional<Integer> getUnfinishedRunId() {
+        final String sql = "select run_id from recommendation_runs where finished_at is null " +
+                "order by run_id desc limit 1";
+
+        return jdbcTemplate.queryForList(sql, Integer.class).stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public int createRun(int rangeSize) {
+        final String runSql = "insert into recommendation_runs (started_at) values (?)";
+        final String boundsSql = "select min(user_id) as min_id, max(user_id) as max_id from likes";
+        final String rangeSql = "insert into recommendation_run_ranges (run_id, range_start, range_end) values (?, ?, ?)";
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(runSql, new String[]{"run_id"});
+            stmt.setTimestamp(1, Timestamp.from(Instant.now()));
+            return stmt;
+        }, keyHolder);
+
+        int runId = Objects.requireNonNull(keyHolder.getKey()).intValue();
+        List<Object[]> ranges = new ArrayList<>();
+
+        jdbcTemplate.query(boundsSql, rs -> {
+            int minId = rs.getInt("min_id");
+
+            if (rs.wasNull()) {
+                return;
+            }
+
+            int maxId = rs.getInt("max_id");
+
+            for (long start = minId; start <= maxId; start += rangeSize) {
+                ranges.add(new Object[]{runId, (int) start, (int) Math.min(maxId, start + rangeSize - 1)});
+            }
+        });
+
+        jdbcTemplate.batchUpdate(rangeSql, ranges);
+
+        return runId;
+    }
+
+    @Override
+    public List<RecommendationRange> getPendingRanges(int runId) {
+        final String sql = "select range_start, range_end from recommendation_run_ranges " +
+                "where run_id = ? and not completed order by range_start";
+
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new RecommendationRange(rs.getInt("range_start"), rs.getInt("range_end")), runId);
+    }
+
+    @Override
+    public int getRangesCount(int runId) {
+        final String sql = "select count(*) from recommendation_run_ranges where run_id = ?";
+
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(sql, Integer.class, runId));
+    }
+
+    @Override
+    @Transactional
+    public void completeRange(int runId, RecommendationRange range, Instant computedAt,
+                              Map<Integer, List<Integer>> filmIdsByUser) {
+        final String deleteSql = "delete from user_recommendations where user_id between ? and ?";
+        final String insertSql = "insert into user_recommendations (user_id, position, film_id) values (?, ?, ?)";
+        final String deleteInvalidatedSql = "delete from user_recommendations where user_id in " +
+                "(select user_id from recommendation_invalidations " +
+                "where user_id between ? and ? and invalidated_at >= ?)";
+        final String completeSql = "update recommendation_run_ranges set completed = true " +
+                "where run_id = ? and range_start = ?";
+
+        // рекомендации пользователей, инвалидированных после computedAt, посчитаны по устаревшим лайкам
+        Timestamp computedFrom = Timestamp.from(computedAt);
+        Set<Integer> invalidatedUserIds = new HashSet<>(jdbcTemplate.queryForList(INVALIDATED_USERS_SQL,
+                Integer.class, range.getStart(), range.getEnd(), computedFrom));
+        List<Object[]> rows = new ArrayList<>();
+
+        filmIdsByUser.forEach((userId, filmIds) -> {
+            if (invalidatedUserIds.contains(userId)) {
+                return;
+            }
+
+            for (int position = 0; position < filmIds.size(); position++) {
+                rows.add(new Object[]{userId, position, filmIds.get(position)});
+            }
+        });
+
+        jdbcTemplate.update(deleteSql, range.getStart(), range.getEnd());
+        jdbcTemplate.batchUpdate(insertSql, rows);
+        jdbcTemplate.update(deleteInvalidatedSql, range.getStart(), range.getEnd(), computedFrom);
+        jdbcTemplate.update(completeSql, runId, range.getStart());
+    }
+
+    @Override
+    @Transactional
+    public void finishRun(int runId) {
+        final String sql = "update recommendation_runs set finished_at = ? where run_id = ?";
+        final String cleanupSql = "delete from recommendation_invalidations where invalidated_at < " +
+                "(select started_at from recommendation_runs where run_id = ?)";
+
+        jdbcTemplate.update(sql, Timestamp.from(Instant.now()), runId);
+        jdbcTemplate.update(cleanupSql, runId);
+    }
+
+    @Override
+    public void onLikeAdded(int filmId, int userId) {
+        invalidate(userId);
+    }
+
+    @Override
+    public void onLikeRemoved(int filmId, int userId) {
+        invalidate(userId);
+    }
+
+    // время пишется до удаления, чтобы диапазон, записавший строки после удаления, стёр их перед коммитом
+    private void invalidate(int userId) {
+        final String sql = "merge into recommendation_invalidations (user_id, invalidated_at) key (user_id) " +
+                "values (?, ?)";
+
+        jdbcTemplate.update(sql, userId, Timestamp.from(Instant.now()));
+        deleteRecommendations(userId);
+    }
+}
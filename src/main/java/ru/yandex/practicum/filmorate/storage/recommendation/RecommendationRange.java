@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RecommendationRange {
+    private int start;
+    private int end;
+}
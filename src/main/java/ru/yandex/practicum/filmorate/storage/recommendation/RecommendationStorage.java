@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface RecommendationStorage {
+
+    List<Integer> getRecommendedFilmIds(Integer userId);
+
+    void deleteRecommendations(Integer userId);
+
+    Collection<Integer> getLikingUserIds(RecommendationRange range);
+
+
+    Optional<Integer> getUnfinishedRunId();
+
+    int createRun(int rangeSize);
+
+    List<RecommendationRange> getPendingRanges(int runId);
+
+    int getRangesCount(int runId);
+
+    void completeRange(int runId, RecommendationRange range, Instant computedAt,
+                       Map<Integer, List<Integer>> filmIdsByUser);
+
+    void finishRun(int runId);
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private volatile Snapshot snapshot;
+
+    public Genre getGenre(int genreId) {
+        Genre[] genresById = getSnapshot().genresById;
+
+        return genreId > 0 && genreId < genresById.length ? genresById[genreId] : null;
+    }
+
+    public Genre resolveGenre(int genreId) {
+        Genre genre = getGenre(genreId);
+
+        if (Objects.isNull(genre) && genreId > 0) {
+            refresh();
+            genre = getGenre(genreId);
+        }
+
+        return genre;
+    }
+
+    public Collection<Genre> getGenres() {
+        return getSnapshot().genres;
+    }
+
+    public Mpa getMpa(int mpaId) {
+        Mpa[] mpasById = getSnapshot().mpasById;
+
+        return mpaId > 0 && mpaId < mpasById.length ? mpasById[mpaId] : null;
+    }
+
+    public Mpa resolveMpa(int mpaId) {
+        Mpa mpa = getMpa(mpaId);
+
+        if (Objects.isNull(mpa) && mpaId > 0) {
+            refresh();
+            mpa = getMpa(mpaId);
+        }
+
+        return mpa;
+    }
+
+    public Collection<Mpa> getMpas() {
+        return getSnapshot().mpas;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        List<Genre> genres = new ArrayList<>(genreStorage.getAllGenres());
+        List<Mpa> mpas = new ArrayList<>(mpaStorage.getAllMpa());
+
+        genres.sort(Comparator.comparingInt(Genre::getId));
+        mpas.sort(Comparator.comparingInt(Mpa::getId));
+
+        Genre[] genresById = new Genre[genres.isEmpty() ? 1 : genres.get(genres.size() - 1).getId() + 1];
+        Mpa[] mpasById = new Mpa[mpas.isEmpty() ? 1 : mpas.get(mpas.size() - 1).getId() + 1];
+
+        genres.forEach(genre -> genresById[genre.getId()] = genre);
+        mpas.forEach(mpa -> mpasById[mpa.getId()] = mpa);
+
+        snapshot = new Snapshot(
+                genresById,
+                mpasById,
+                Collections.unmodifiableList(genres),
+                Collections.unmodifiableList(mpas)
+        );
+        log.info("Справочники загружены, жанров: {}, MPA рейтингов: {}", genres.size(), mpas.size());
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+
+        if (Objects.isNull(current)) {
+            synchronized (this) {
+                if (Objects.isNull(snapshot)) {
+                    refresh();
+                }
+
+                current = snapshot;
+            }
+        }
+
+        return current;
+    }
+
+    private static class Snapshot {
+        private final Genre[] genresById;
+        private final Mpa[] mpasById;
+        private final List<Genre> genres;
+        private final List<Mpa> mpas;
+
+        Snapshot(Genre[] genresById, Mpa[] mpasById, List<Genre> genres, List<Mpa> mpas) {
+            this.genresById = genresById;
+            this.mpasById = mpasById;
+            this.genres = genres;
+            this.mpas = mpas;
+        }
+    }
+}
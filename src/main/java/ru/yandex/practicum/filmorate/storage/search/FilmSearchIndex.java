@@ -0,0 +1,203 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.constants.SearchBy;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<SearchBy, TrigramIndex> indexes = new EnumMap<>(SearchBy.class);
+    private final Map<Integer, int[]> directorFilmIds = new HashMap<>();
+    private final Map<Integer, int[]> filmDirectorIds = new HashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        final String filmsSql = "select id, name from films";
+        final String directorsSql = "select director_id, name from directors";
+        final String filmDirectorsSql = "select film_id, director_id from film_directors";
+
+        lock.writeLock().lock();
+
+        try {
+            indexes.clear();
+            directorFilmIds.clear();
+            filmDirectorIds.clear();
+
+            for (SearchBy searchBy : SearchBy.values()) {
+                indexes.put(searchBy, new TrigramIndex());
+            }
+
+            jdbcTemplate.query(filmsSql, rs -> {
+                getIndex(SearchBy.title).put(rs.getInt("id"), rs.getString("name"));
+            });
+            jdbcTemplate.query(directorsSql, rs -> {
+                getIndex(SearchBy.director).put(rs.getInt("director_id"), rs.getString("name"));
+            });
+            jdbcTemplate.query(filmDirectorsSql, rs -> {
+                linkDirector(rs.getInt("film_id"), rs.getInt("director_id"));
+            });
+
+            loaded = true;
+            log.info("Поисковый индекс построен, фильмов: {}, режиссеров: {}",
+                    getIndex(SearchBy.title).size(), getIndex(SearchBy.director).size());
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Collection<Integer>> search(String query, Set<SearchBy> searchFields) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+
+        try {
+            int[] filmIds = SortedIntArrays.EMPTY;
+
+            for (SearchBy searchBy : searchFields) {
+                int[] ids = getIndex(searchBy).find(query);
+
+                if (searchBy == SearchBy.director) {
+                    ids = getDirectorsFilmIds(ids);
+                }
+
+                filmIds = SortedIntArrays.union(filmIds, ids);
+            }
+
+            return Optional.of(IntStream.of(filmIds).boxed().collect(Collectors.toList()));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putFilm(Film film) {
+        lock.writeLock().lock();
+
+        try {
+            int filmId = film.getId();
+
+            getIndex(SearchBy.title).put(filmId, film.getName());
+
+            for (int directorId : filmDirectorIds.getOrDefault(filmId, SortedIntArrays.EMPTY)) {
+                unlinkDirector(filmId, directorId);
+            }
+
+            if (Objects.nonNull(film.getDirectors())) {
+                film.getDirectors().forEach(director -> linkDirector(filmId, director.getId()));
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+
+        try {
+            getIndex(SearchBy.title).remove(filmId);
+
+            for (int directorId : filmDirectorIds.getOrDefault(filmId, SortedIntArrays.EMPTY)) {
+                unlinkDirector(filmId, directorId);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(Director director) {
+        lock.writeLock().lock();
+
+        try {
+            getIndex(SearchBy.director).put(director.getId(), director.getName());
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(int directorId) {
+        lock.writeLock().lock();
+
+        try {
+            getIndex(SearchBy.director).remove(directorId);
+
+            for (int filmId : directorFilmIds.getOrDefault(directorId, SortedIntArrays.EMPTY)) {
+                unlinkDirector(filmId, directorId);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private TrigramIndex getIndex(SearchBy searchBy) {
+        return indexes.computeIfAbsent(searchBy, ignored -> new TrigramIndex());
+    }
+
+    private int[] getDirectorsFilmIds(int[] directorIds) {
+        int[] filmIds = SortedIntArrays.EMPTY;
+
+        for (int directorId : directorIds) {
+            filmIds = SortedIntArrays.union(filmIds, directorFilmIds.getOrDefault(directorId, SortedIntArrays.EMPTY));
+        }
+
+        return filmIds;
+    }
+
+    private void linkDirector(int filmId, int directorId) {
+        directorFilmIds.merge(directorId, new int[]{filmId}, (ids, ignored) -> SortedIntArrays.insert(ids, filmId));
+        filmDirectorIds.merge(filmId, new int[]{directorId}, (ids, ignored) -> SortedIntArrays.insert(ids, directorId));
+    }
+
+    private void unlinkDirector(int filmId, int directorId) {
+        removeLink(directorFilmIds, directorId, filmId);
+        removeLink(filmDirectorIds, filmId, directorId);
+    }
+
+    private static void removeLink(Map<Integer, int[]> links, int key, int value) {
+        int[] ids = links.get(key);
+
+        if (Objects.isNull(ids)) {
+            return;
+        }
+
+        ids = SortedIntArrays.remove(ids, value);
+
+        if (ids.length == 0) {
+            links.remove(key);
+        }
+        else {
+            links.put(key, ids);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private final Map<Integer, String> texts = new HashMap<>();
+    private final Map<Long, int[]> postings = new HashMap<>();
+
+    static String normalize(String text) {
+        return Objects.isNull(text) ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    void put(int id, String text) {
+        String normalized = normalize(text);
+        String previous = texts.get(id);
+
+        if (Objects.nonNull(previous) && previous.equals(normalized)) {
+            return;
+        }
+
+        remove(id);
+
+        if (Objects.isNull(normalized)) {
+            return;
+        }
+
+        texts.put(id, normalized);
+        getGrams(normalized).forEach(gram -> postings.merge(gram, new int[]{id},
+                (ids, ignored) -> SortedIntArrays.insert(ids, id)));
+    }
+
+    void remove(int id) {
+        String previous = texts.remove(id);
+
+        if (Objects.isNull(previous)) {
+            return;
+        }
+
+        getGrams(previous).forEach(gram -> {
+            int[] ids = SortedIntArrays.remove(postings.get(gram), id);
+
+            if (ids.length == 0) {
+                postings.remove(gram);
+            }
+            else {
+                postings.put(gram, ids);
+            }
+        });
+    }
+
+    int[] find(String query) {
+        String normalized = normalize(query);
+
+        if (normalized.length() < GRAM_LENGTH) {
+            return scan(normalized, texts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray());
+        }
+
+        int[] candidates = null;
+
+        for (long gram : getGrams(normalized)) {
+            int[] ids = postings.get(gram);
+
+            if (Objects.isNull(ids)) {
+                return SortedIntArrays.EMPTY;
+            }
+
+            candidates = Objects.isNull(candidates) ? ids : SortedIntArrays.intersect(candidates, ids);
+
+            if (candidates.length == 0) {
+                return SortedIntArrays.EMPTY;
+            }
+        }
+
+        return scan(normalized, candidates);
+    }
+
+    int size() {
+        return texts.size();
+    }
+
+    private int[] scan(String normalized, int[] candidates) {
+        int[] result = new int[candidates.length];
+        int size = 0;
+
+        for (int id : candidates) {
+            if (texts.get(id).contains(normalized)) {
+                result[size++] = id;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    private static Set<Long> getGrams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+
+        return grams;
+    }
+}
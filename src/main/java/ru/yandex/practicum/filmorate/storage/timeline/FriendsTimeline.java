@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.storage.timeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.event.FeedEventListener;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class FriendsTimeline implements FeedEventListener {
+
+    private final FriendshipStorage friendshipStorage;
+    private final EventStorage eventStorage;
+    private final int capacity;
+    private final int fanOutLimit;
+    private final Map<Integer, TreeMap<Integer, Event>> timelines;
+    // события авторов с подписчиками больше fan-out-limit не раздаются, а подмешиваются при чтении
+    private final Map<Integer, TreeMap<Integer, Event>> authorEvents;
+    private final AtomicInteger lastRecordedEventId = new AtomicInteger();
+
+    public FriendsTimeline(FriendshipStorage friendshipStorage,
+                           EventStorage eventStorage,
+                           @Value("${filmorate.timeline.capacity:200}") int capacity,
+                           @Value("${filmorate.timeline.fan-out-limit:1000}") int fanOutLimit,
+                           @Value("${filmorate.timeline.max-users:10000}") int maxUsers) {
+        this.friendshipStorage = friendshipStorage;
+        this.eventStorage = eventStorage;
+        this.capacity = capacity;
+        this.fanOutLimit = fanOutLimit;
+        this.timelines = createBuffers(maxUsers);
+        this.authorEvents = createBuffers(maxUsers);
+    }
+
+    public List<Event> getTimeline(int userId, int limit) {
+        int[] friendIds = friendshipStorage.getFriendIds(userId);
+        TreeMap<Integer, Event> events = new TreeMap<>(Collections.reverseOrder());
+
+        putAll(events, getBuffer(timelines, userId, () -> getFannedOutAuthors(friendIds)));
+
+        for (int friendId : friendIds) {
+            if (isCelebrity(friendId)) {
+                putAll(events, getBuffer(authorEvents, friendId, () -> List.of(friendId)));
+            }
+        }
+
+        List<Event> page = new ArrayList<>(Math.min(limit, capacity));
+
+        for (Event event : events.values()) {
+            if (page.size() >= Math.min(limit, capacity)) {
+                break;
+            }
+
+            if (SortedIntArrays.contains(friendIds, event.getUserId())) {
+                page.add(event);
+            }
+        }
+
+        Collections.reverse(page);
+
+        return page;
+    }
+
+    public void invalidate(int userId) {
+        timelines.remove(userId);
+    }
+
+    // события бывшей знаменитости есть только в её буфере, поэтому ленты подписчиков строятся заново
+    public void onFollowersChanged(int authorId) {
+        int[] followerIds = friendshipStorage.getFollowerIds(authorId);
+
+        if (followerIds.length > fanOutLimit || Objects.isNull(authorEvents.remove(authorId))) {
+            return;
+        }
+
+        for (int followerId : followerIds) {
+            timelines.remove(followerId);
+        }
+
+        log.debug("Пользователь с id = {} снова раздаёт события, ленты {} подписчиков сброшены",
+                authorId, followerIds.length);
+    }
+
+    public void removeUser(int userId) {
+        timelines.remove(userId);
+        authorEvents.remove(userId);
+    }
+
+    @Override
+    public void onEventsRecorded(List<Event> events) {
+        for (Event event : events) {
+            lastRecordedEventId.accumulateAndGet(event.getEventId(), Math::max);
+        }
+
+        for (Event event : events) {
+            int authorId = event.getUserId();
+            int[] followerIds = friendshipStorage.getFollowerIds(authorId);
+
+            if (followerIds.length > fanOutLimit) {
+                push(authorEvents.get(authorId), event);
+                continue;
+            }
+
+            for (int followerId : followerIds) {
+                push(timelines.get(followerId), event);
+            }
+        }
+    }
+
+    private boolean isCelebrity(int userId) {
+        return friendshipStorage.getFollowerIds(userId).length > fanOutLimit;
+    }
+
+    private List<Integer> getFannedOutAuthors(int[] friendIds) {
+        List<Integer> authors = new ArrayList<>(friendIds.length);
+
+        for (int friendId : friendIds) {
+            if (!isCelebrity(friendId)) {
+                authors.add(friendId);
+            }
+        }
+
+        return authors;
+    }
+
+    // событие, записанное между чтением feed и публикацией буфера, в него не попало и дочитывается
+    private List<Event> getBuffer(Map<Integer, TreeMap<Integer, Event>> buffers, int ownerId,
+                                  Supplier<List<Integer>> authorIds) {
+        TreeMap<Integer, Event> buffer = buffers.get(ownerId);
+
+        if (Objects.isNull(buffer)) {
+            List<Integer> authors = authorIds.get();
+            int loadedEventId = lastRecordedEventId.get();
+            TreeMap<Integer, Event> newBuffer = new TreeMap<>();
+
+            for (Event event : eventStorage.getRecentEvents(authors, capacity)) {
+                push(newBuffer, event);
+            }
+
+            buffer = buffers.putIfAbsent(ownerId, newBuffer);
+
+            if (Objects.isNull(buffer)) {
+                buffer = newBuffer;
+
+                if (lastRecordedEventId.get() != loadedEventId) {
+                    for (Event event : eventStorage.getRecentEvents(authors, capacity)) {
+                        push(buffer, event);
+                    }
+                }
+
+                log.debug("Буфер ленты для пользователя с id = {} построен из таблицы feed", ownerId);
+            }
+        }
+
+        synchronized (buffer) {
+            return new ArrayList<>(buffer.values());
+        }
+    }
+
+    private void push(TreeMap<Integer, Event> buffer, Event event) {
+        if (Objects.isNull(buffer)) {
+            return;
+        }
+
+        synchronized (buffer) {
+            buffer.put(event.getEventId(), event);
+
+            if (buffer.size() > capacity) {
+                buffer.pollFirstEntry();
+            }
+        }
+    }
+
+    private static void putAll(TreeMap<Integer, Event> events, List<Event> buffer) {
+        for (Event event : buffer) {
+            events.put(event.getEventId(), event);
+        }
+    }
+
+    private static Map<Integer, TreeMap<Integer, Event>> createBuffers(int maxUsers) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, TreeMap<Integer, Event>> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+}
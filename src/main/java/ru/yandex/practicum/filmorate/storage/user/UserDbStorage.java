@@ -5,10 +5,13 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.PreparedStatement;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 @Component
@@ -58,6 +61,21 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(USERS_SQL, new UserMapper());
     }
 
+    @Override
+    public Collection<User> getUsersPage(Integer afterId, Integer limit) {
+        return jdbcTemplate.query(USERS_SQL.concat(" where id > ? order by id limit ?"), new UserMapper(), afterId, limit);
+    }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return jdbcTemplate.query(USERS_SQL.concat(" where id = any(?) order by id"), new UserMapper(),
+                (Object) userIds.toArray(new Integer[0]));
+    }
+
     @Override
     public User updateUser(User user) {
         final String sql = "update users set name = ?, login = ?, birthday = ?, email = ? where id = ?";
@@ -88,8 +106,13 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public boolean deleteUserById(Integer id) {
+        final String likesCountSql = "update films set likes_count = likes_count - 1 " +
+                "where id in (select film_id from likes where user_id = ?)";
         final String sql = "delete from users where id = ?";
+
+        jdbcTemplate.update(likesCountSql, id);
         int status = jdbcTemplate.update(sql, id);
         return status != 0;
     }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
 
@@ -12,6 +13,10 @@ public interface UserStorage {
 
     Collection<User> getAllUsers();
 
+    Collection<User> getUsersPage(Integer afterId, Integer limit);
+
+    List<User> getUsersByIds(Collection<Integer> userIds);
+
     User updateUser(User user);
 
     Collection<User> getUserFriends(Integer userId);
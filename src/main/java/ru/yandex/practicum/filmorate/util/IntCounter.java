@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.util;
+
+public class IntCounter {
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    public IntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+
+        keys = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    public void increment(int key) {
+        int slot = findSlot(keys, counts, key);
+
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+
+        counts[slot]++;
+
+        if (size * 4 > keys.length * 3) {
+            resize();
+        }
+    }
+
+    public int get(int key) {
+        return counts[findSlot(keys, counts, key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] != 0) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+
+        keys = new int[oldKeys.length << 1];
+        counts = new int[oldCounts.length << 1];
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldCounts[slot] != 0) {
+                int newSlot = findSlot(keys, counts, oldKeys[slot]);
+
+                keys[newSlot] = oldKeys[slot];
+                counts[newSlot] = oldCounts[slot];
+            }
+        }
+    }
+
+    private static int findSlot(int[] keys, int[] counts, int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int count);
+    }
+}
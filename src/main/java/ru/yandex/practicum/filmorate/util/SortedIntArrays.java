@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+
+@UtilityClass
+public class SortedIntArrays {
+
+    public static final int[] EMPTY = new int[0];
+
+    public static int[] insert(int[] values, int value) {
+        int index = Arrays.binarySearch(values, value);
+
+        if (index >= 0) {
+            return values;
+        }
+
+        index = -index - 1;
+
+        int[] result = new int[values.length + 1];
+
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+
+        return result;
+    }
+
+    public static int[] remove(int[] values, int value) {
+        int index = Arrays.binarySearch(values, value);
+
+        if (index < 0) {
+            return values;
+        }
+
+        int[] result = new int[values.length - 1];
+
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+
+        return result;
+    }
+
+    public static boolean contains(int[] values, int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            }
+            else if (first[i] > second[j]) {
+                j++;
+            }
+            else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    public static int[] union(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length || j < second.length) {
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                result[size++] = first[i++];
+            }
+            else if (i == first.length || second[j] < first[i]) {
+                result[size++] = second[j++];
+            }
+            else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
@@ -1,23 +0,0 @@
-insert into mpas (name)
-values ('G');
-insert into mpas (name)
-values ('PG');
-insert into mpas (name)
-values ('PG-13');
-insert into mpas (name)
-values ('R');
-insert into mpas (name)
-values ('NC-17');
-
-insert into genres (name)
-values ('Комедия');
-insert into genres (name)
-values ('Драма');
-insert into genres (name)
-values ('Мультфильм');
-insert into genres (name)
-values ('Триллер');
-insert into genres (name)
-values ('Документальный');
-insert into genres (name)
-values ('Боевик');
\ No newline at end of file
@@ -36,9 +36,12 @@ create table if not exists films
     release_date date,
     description  varchar(200),
     duration     int,
-    rate         int
+    rate         int,
+    likes_count  int default 0 not null
 );
 
+alter table films add column if not exists likes_count int default 0 not null;
+
 create table if not exists likes
 (
     film_id int,
@@ -114,4 +117,28 @@ create table if not exists film_directors
     primary key (director_id, film_id),
     foreign key (director_id) references directors (director_id) on delete cascade,
     foreign key (film_id) references films (id) on delete cascade
-);
\ No newline at end of file
+);
+create table if not exists user_recommendations
+(
+    user_id  int,
+    position int,
+    film_id  int not null,
+    foreign key (user_id) references users (id) on delete cascade,
+    foreign key (film_id) references films (id) on delete cascade,
+    primary key (user_id, position)
+);
+create table if not exists recommendation_runs
+(
+    run_id      int generated by default as identity primary key,
+    started_at  timestamp not null,
+    finished_at timestamp
+);
+create table if not exists recommendation_run_ranges
+(
+    run_id      int,
+    range_start int,
+    range_end   int     not null,
+    completed   boolean not null default false,
+    foreign key (run_id) references recommendation_runs (run_id) on delete cascade,
+    primary key (run_id, range_start)
+);
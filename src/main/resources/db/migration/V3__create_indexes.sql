@@ -0,0 +1,14 @@
+create index if not exists films_likes_count_idx on films (likes_count desc, id);
+create index if not exists films_release_date_idx on films (release_date);
+
+create index if not exists likes_user_idx on likes (user_id, film_id);
+create index if not exists friendships_friend_idx on friendships (friend_id, user_id);
+create index if not exists film_genres_genre_idx on film_genres (genre_id, film_id);
+create index if not exists film_mpas_film_idx on film_mpas (film_id);
+create index if not exists film_directors_film_idx on film_directors (film_id, director_id);
+
+create index if not exists reviews_film_useful_idx on reviews (film_id, useful desc, review_id);
+create index if not exists reviews_useful_idx on reviews (useful desc, review_id);
+create index if not exists review_ratings_review_idx on review_ratings (review_id);
+
+create index if not exists feed_user_event_idx on feed (user_id, event_id);
@@ -0,0 +1,8 @@
+create table if not exists recommendation_invalidations
+(
+    user_id        int primary key,
+    invalidated_at timestamp not null,
+    foreign key (user_id) references users (id) on delete cascade
+);
+
+create index if not exists recommendation_invalidations_time_idx on recommendation_invalidations (invalidated_at);
@@ -0,0 +1 @@
+create index if not exists feed_user_event_desc_idx on feed (user_id, event_id desc);
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.popularity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+class PopularityBucketTest {
+
+    @Test
+    void shouldOrderByLikesThenById() {
+        PopularityBucket bucket = new PopularityBucket(10);
+
+        bucket.offer(3, 1);
+        bucket.offer(1, 0);
+        bucket.offer(2, 1);
+        bucket.update(1, 0, 5);
+
+        Assertions.assertEquals(Optional.of(List.of(1, 2, 3)), bucket.top(10));
+        Assertions.assertEquals(Optional.of(List.of(1, 2)), bucket.top(2));
+    }
+
+    @Test
+    void shouldAnswerFromTruncatedBucketAboveEvictedLikes() {
+        PopularityBucket bucket = new PopularityBucket(2);
+
+        bucket.offer(1, 5);
+        bucket.offer(2, 3);
+        bucket.offer(3, 1);
+
+        Assertions.assertEquals(Optional.of(List.of(1, 2)), bucket.top(2));
+        Assertions.assertEquals(Optional.empty(), bucket.top(3));
+    }
+
+    @Test
+    void shouldNotAnswerWhenMemberDroppedToEvictedLikes() {
+        PopularityBucket bucket = new PopularityBucket(2);
+
+        bucket.offer(1, 5);
+        bucket.offer(2, 3);
+        bucket.offer(3, 2);
+        bucket.update(2, 3, 2);
+
+        Assertions.assertEquals(Optional.of(List.of(1)), bucket.top(1));
+        Assertions.assertEquals(Optional.empty(), bucket.top(2));
+    }
+
+    @Test
+    void shouldAnswerAgainWhenEvictedFilmLeaves() {
+        PopularityBucket bucket = new PopularityBucket(2);
+
+        bucket.offer(1, 5);
+        bucket.offer(2, 4);
+        bucket.offer(3, 3);
+        bucket.remove(3, 3);
+        bucket.update(2, 4, 2);
+
+        Assertions.assertEquals(Optional.of(List.of(1, 2)), bucket.top(2));
+        Assertions.assertEquals(Optional.of(List.of(1, 2)), bucket.top(3));
+    }
+}
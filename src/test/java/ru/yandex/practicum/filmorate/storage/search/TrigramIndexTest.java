@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+    @Test
+    void shouldFindSubstringsIgnoringCase() {
+        TrigramIndex index = new TrigramIndex();
+
+        index.put(1, "Крадущийся тигр");
+        index.put(2, "Тигры и львы");
+        index.put(3, "Интерстеллар");
+
+        Assertions.assertArrayEquals(new int[]{1, 2}, index.find("ТИГР"));
+        Assertions.assertArrayEquals(new int[]{3}, index.find("стел"));
+        Assertions.assertArrayEquals(new int[]{1, 2, 3}, index.find("р"));
+        Assertions.assertArrayEquals(new int[0], index.find("тигрица"));
+    }
+
+    @Test
+    void shouldReplaceAndRemoveTexts() {
+        TrigramIndex index = new TrigramIndex();
+
+        index.put(1, "Старое название");
+        index.put(1, "Новое название");
+
+        Assertions.assertArrayEquals(new int[0], index.find("старое"));
+        Assertions.assertArrayEquals(new int[]{1}, index.find("новое"));
+
+        index.remove(1);
+
+        Assertions.assertArrayEquals(new int[0], index.find("название"));
+        Assertions.assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntCounterTest {
+
+    @Test
+    void countKeys() {
+        IntCounter counter = new IntCounter(2);
+
+        counter.increment(5);
+        counter.increment(-5);
+        counter.increment(5);
+
+        assertEquals(2, counter.size());
+        assertEquals(2, counter.get(5));
+        assertEquals(1, counter.get(-5));
+        assertEquals(0, counter.get(7));
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void spreadLargeKeySets() {
+        int keys = 1_000_000;
+        IntCounter counter = new IntCounter(16);
+
+        for (int key = 1; key <= keys; key++) {
+            counter.increment(key);
+            counter.increment(key);
+        }
+
+        AtomicLong total = new AtomicLong();
+
+        counter.forEach((key, count) -> total.addAndGet(count));
+
+        assertEquals(keys, counter.size());
+        assertEquals(2, counter.get(keys));
+        assertEquals(2L * keys, total.get());
+    }
+}
@@ -0,0 +1,129 @@
+package storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.film-cache.enabled=true")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CachingFilmStorageTest {
+
+    private final FilmStorage filmStorage;
+    private final DirectorStorage directorStorage;
+    private final FilmCache filmCache;
+    private final MeterRegistry meterRegistry;
+    private Film newFilm;
+    private Director director;
+
+    @BeforeEach
+    public void addFilm() {
+        director = directorStorage.createDirector(new Director("Режиссер", 0));
+        newFilm = filmStorage.createFilm(new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .directors(List.of(director))
+            .build());
+    }
+
+    @Test
+    public void getFilmByIdFromCache() {
+        assertTrue(filmStorage instanceof CachingFilmStorage);
+
+        Film first = filmStorage.getFilmById(newFilm.getId());
+
+        assertEquals(first, filmStorage.getFilmById(newFilm.getId()));
+        assertEquals(first, filmStorage.getFilmsByIds(List.of(newFilm.getId())).get(0));
+        assertEquals(filmCacheHits(), 2);
+    }
+
+    @Test
+    public void returnCopiesFromCache() {
+        Film first = filmStorage.getFilmById(newFilm.getId());
+
+        first.setName("Изменено");
+        first.getDirectors().clear();
+
+        Film second = filmStorage.getFilmById(newFilm.getId());
+
+        assertNotSame(first, second);
+        assertEquals("Фильм", second.getName());
+        assertEquals(1, second.getDirectors().size());
+
+        new ArrayList<>(second.getDirectors()).get(0).setName("Изменено");
+
+        assertEquals(director.getName(),
+                new ArrayList<>(filmStorage.getFilmById(newFilm.getId()).getDirectors()).get(0).getName());
+    }
+
+    @Test
+    public void skipLoadInvalidatedDuringRead() {
+        long generation = filmCache.getGeneration(newFilm.getId());
+
+        filmCache.invalidate(newFilm.getId());
+        filmCache.put(newFilm, generation);
+
+        assertNull(filmCache.get(newFilm.getId()));
+
+        filmCache.put(newFilm, filmCache.getGeneration(newFilm.getId()));
+
+        assertEquals(newFilm, filmCache.get(newFilm.getId()));
+    }
+
+    @Test
+    public void invalidateOnUpdate() {
+        filmStorage.getFilmById(newFilm.getId());
+        filmStorage.updateFilm(newFilm.toBuilder().name("Фильм!").build());
+
+        assertEquals("Фильм!", filmStorage.getFilmById(newFilm.getId()).getName());
+    }
+
+    @Test
+    public void invalidateOnDirectorUpdate() {
+        filmStorage.getFilmById(newFilm.getId());
+        directorStorage.updateDirector(director.toBuilder().name("Другой режиссер").build());
+
+        Film film = filmStorage.getFilmById(newFilm.getId());
+
+        assertEquals("Другой режиссер", new ArrayList<>(film.getDirectors()).get(0).getName());
+    }
+
+    @Test
+    public void invalidateOnDelete() {
+        filmStorage.getFilmById(newFilm.getId());
+        filmStorage.deleteFilmById(newFilm.getId());
+
+        assertNull(filmStorage.getFilmById(newFilm.getId()));
+    }
+
+    private double filmCacheHits() {
+        return meterRegistry.counter("filmorate.film.cache.requests", "result", "hit").count();
+    }
+}
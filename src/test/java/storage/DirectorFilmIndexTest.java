@@ -0,0 +1,130 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.SortBy;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.filmDirector.DirectorFilmIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class DirectorFilmIndexTest {
+
+    private final DirectorFilmIndex directorFilmIndex;
+    private final DirectorService directorService;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final PlatformTransactionManager transactionManager;
+    private Director director;
+    private Film oldFilm;
+    private Film newFilm;
+
+    @BeforeEach
+    public void addFilms() {
+        director = directorService.createDirector(new Director("Режиссёр", 0));
+
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.of(2000, 1, 1))
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .genres(List.of())
+            .directors(List.of(director))
+            .build();
+
+        newFilm = filmService.createFilm(film.toBuilder().releaseDate(LocalDate.of(2010, 1, 1)).build());
+        oldFilm = filmService.createFilm(film);
+
+        User user = userService.createUser(new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build());
+
+        filmService.addLikeToFilm(newFilm.getId(), user.getId());
+    }
+
+    @Test
+    public void orderByYearAndLikes() {
+        assertEquals(getFilmIds(SortBy.YEAR), List.of(oldFilm.getId(), newFilm.getId()));
+        assertEquals(getFilmIds(SortBy.LIKES), List.of(newFilm.getId(), oldFilm.getId()));
+
+        filmService.updateFilm(oldFilm.toBuilder().releaseDate(LocalDate.of(2020, 1, 1)).build());
+
+        assertEquals(getFilmIds(SortBy.YEAR), List.of(newFilm.getId(), oldFilm.getId()));
+        assertEquals(filmService.getDirectorFilms(director.getId(), SortBy.YEAR).iterator().next().getId(),
+            newFilm.getId());
+    }
+
+    @Test
+    public void followDirectorLinks() {
+        filmService.updateFilm(newFilm.toBuilder().directors(List.of()).build());
+
+        assertEquals(getFilmIds(SortBy.LIKES), List.of(oldFilm.getId()));
+
+        filmService.deleteFilmById(oldFilm.getId());
+
+        assertEquals(getFilmIds(SortBy.LIKES), List.of());
+
+        filmService.updateFilm(newFilm);
+
+        assertEquals(getFilmIds(SortBy.YEAR), List.of(newFilm.getId()));
+
+        directorService.deleteDirector(director.getId());
+
+        assertEquals(directorFilmIndex.getFilmIds(director.getId(), SortBy.YEAR), Optional.of(List.of()));
+    }
+
+    @Test
+    public void applyChangesAfterCommit() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            filmService.updateFilm(newFilm.toBuilder().directors(List.of()).build());
+
+            assertEquals(getFilmIds(SortBy.LIKES), List.of(newFilm.getId(), oldFilm.getId()));
+
+            status.setRollbackOnly();
+        });
+
+        assertEquals(getFilmIds(SortBy.LIKES), List.of(newFilm.getId(), oldFilm.getId()));
+
+        transaction.executeWithoutResult(status -> {
+            filmService.updateFilm(newFilm.toBuilder().directors(List.of()).build());
+
+            assertEquals(getFilmIds(SortBy.LIKES), List.of(newFilm.getId(), oldFilm.getId()));
+        });
+
+        assertEquals(getFilmIds(SortBy.LIKES), List.of(oldFilm.getId()));
+    }
+
+    private List<Integer> getFilmIds(SortBy sortBy) {
+        return directorFilmIndex.getFilmIds(director.getId(), sortBy).orElseThrow();
+    }
+}
@@ -0,0 +1,70 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventOperation;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class EventStorageTest {
+
+    private final EventStorage eventStorage;
+    private final UserStorage userStorage;
+    private int userId;
+
+    @BeforeEach
+    public void addEvents() {
+        userId = userStorage.createUser(new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build()).getId();
+
+        for (int entityId = 1; entityId <= 5; entityId++) {
+            eventStorage.createEvent(Event.builder()
+                .timestamp(entityId)
+                .userId(userId)
+                .eventType(EventType.LIKE)
+                .operation(EventOperation.ADD)
+                .entityId(entityId)
+                .build());
+        }
+    }
+
+    @Test
+    public void getFeedPages() {
+        List<Event> newestPage = eventStorage.getFeedPage(userId, Integer.MAX_VALUE, 2);
+
+        assertEquals(getEntityIds(newestPage), List.of(4, 5));
+
+        List<Event> previousPage = eventStorage.getFeedPage(userId, newestPage.get(0).getEventId(), 2);
+
+        assertEquals(getEntityIds(previousPage), List.of(2, 3));
+        assertEquals(getEntityIds(eventStorage.getFeed(userId)), List.of(1, 2, 3, 4, 5));
+    }
+
+    private static List<Integer> getEntityIds(List<Event> events) {
+        return events.stream().map(Event::getEntityId).collect(Collectors.toList());
+    }
+}
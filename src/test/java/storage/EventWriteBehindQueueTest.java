@@ -0,0 +1,134 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventOperation;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.EventService;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.event.EventWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = {
+    "filmorate.feed.write-behind.batch-size=3",
+    "filmorate.feed.write-behind.flush-interval=1h"
+})
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class EventWriteBehindQueueTest {
+
+    private final EventWriteBehindQueue eventWriteBehindQueue;
+    private final EventService eventService;
+    private final EventStorage eventStorage;
+    private final UserStorage userStorage;
+    private int userId;
+
+    @BeforeEach
+    public void addUser() {
+        userId = userStorage.createUser(new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build()).getId();
+    }
+
+    @Test
+    public void flushBeforeFeedRead() {
+        int otherUserId = userStorage.createUser(userStorage.getUserById(userId).toBuilder()
+            .login("other")
+            .build()).getId();
+
+        eventService.createEvent(userId, EventType.FRIEND, EventOperation.ADD, 1);
+        eventService.createEvent(otherUserId, EventType.FRIEND, EventOperation.ADD, 1);
+
+        assertEquals(eventStorage.getFeed(userId).size(), 0);
+        assertEquals(eventService.getFeed(userId).size(), 1);
+        assertEquals(eventStorage.getFeed(otherUserId).size(), 0);
+
+        eventService.createEvent(userId, EventType.FRIEND, EventOperation.REMOVE, 1);
+
+        List<Event> feed = eventService.getFeed(userId);
+
+        assertEquals(feed.stream().map(Event::getOperation).collect(Collectors.toList()),
+                List.of(EventOperation.ADD, EventOperation.REMOVE));
+    }
+
+    @Test
+    public void writeFullBatchesInBackground() throws InterruptedException {
+        for (int entityId = 1; entityId <= 3; entityId++) {
+            eventService.createEvent(userId, EventType.LIKE, EventOperation.ADD, entityId);
+        }
+
+        for (int attempt = 0; attempt < 50 && eventStorage.getFeed(userId).size() < 3; attempt++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(eventStorage.getFeed(userId).size(), 3);
+    }
+
+    @Test
+    public void retryFailedBatchWithoutDuplicates() {
+        eventService.createEvent(userId, EventType.LIKE, EventOperation.ADD, 1);
+        eventService.createEvent(userId + 100, EventType.LIKE, EventOperation.ADD, 2);
+        eventService.createEvent(userId, EventType.LIKE, EventOperation.ADD, 3);
+        eventWriteBehindQueue.flush();
+
+        assertEquals(eventStorage.getFeed(userId).stream().map(Event::getEntityId).collect(Collectors.toList()),
+                List.of(1, 3));
+    }
+
+    @Test
+    public void flushReturnsUnderProducerLoad() throws InterruptedException {
+        AtomicBoolean producing = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            while (producing.get()) {
+                eventService.createEvent(userId, EventType.LIKE, EventOperation.ADD, 1);
+            }
+        });
+
+        producer.start();
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), eventWriteBehindQueue::flush);
+        }
+        finally {
+            producing.set(false);
+            producer.join();
+        }
+    }
+
+    @Test
+    public void assignEventIdsOnBatchInsert() {
+        List<Event> events = List.of(
+            Event.builder().userId(userId).eventType(EventType.LIKE).operation(EventOperation.ADD).entityId(1).build(),
+            Event.builder().userId(userId).eventType(EventType.LIKE).operation(EventOperation.ADD).entityId(2).build()
+        );
+
+        eventStorage.createEvents(events);
+        eventWriteBehindQueue.flush();
+
+        assertTrue(events.get(0).getEventId() > 0);
+        assertEquals(events.get(1).getEventId(), events.get(0).getEventId() + 1);
+    }
+}
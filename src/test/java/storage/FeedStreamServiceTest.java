@@ -0,0 +1,132 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.event.EventWriteBehindQueue;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.feed.stream.replay-limit=2")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FeedStreamServiceTest {
+
+    private final UserService userService;
+    private final EventWriteBehindQueue eventWriteBehindQueue;
+    private final MockMvc mockMvc;
+    private User firstUser;
+    private User secondUser;
+
+    @BeforeEach
+    public void addUsers() {
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        firstUser = userService.createUser(user);
+        secondUser = userService.createUser(user.toBuilder().login("other").build());
+    }
+
+    @Test
+    public void pushNewEvents() throws Exception {
+        MvcResult result = mockMvc.perform(get("/users/{id}/feed/stream", firstUser.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        userService.addFriend(firstUser.getId(), secondUser.getId());
+        eventWriteBehindQueue.flush();
+
+        String body = awaitEvent(result, 1);
+
+        assertTrue(body.contains("id:1\n"));
+        assertTrue(body.contains("\"operation\":\"ADD\""));
+    }
+
+    @Test
+    public void resumeFromLastEventId() throws Exception {
+        userService.addFriend(firstUser.getId(), secondUser.getId());
+        userService.deleteFriend(firstUser.getId(), secondUser.getId());
+
+        MvcResult result = mockMvc.perform(get("/users/{id}/feed/stream", firstUser.getId())
+                .header("Last-Event-ID", 1))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        userService.addFriend(firstUser.getId(), secondUser.getId());
+        eventWriteBehindQueue.flush();
+
+        String body = awaitEvent(result, 3);
+
+        assertFalse(body.contains("id:1\n"));
+        assertTrue(body.contains("id:2\n"));
+        assertTrue(body.contains("id:3\n"));
+    }
+
+    @Test
+    public void closeStreamAfterReplayLimit() throws Exception {
+        userService.addFriend(firstUser.getId(), secondUser.getId());
+        userService.deleteFriend(firstUser.getId(), secondUser.getId());
+        userService.addFriend(firstUser.getId(), secondUser.getId());
+
+        MvcResult result = mockMvc.perform(get("/users/{id}/feed/stream", firstUser.getId())
+                .header("Last-Event-ID", 0))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String body = awaitEvent(result, 2);
+
+        assertTrue(body.contains("id:1\n"));
+        assertFalse(body.contains("id:3\n"));
+
+        userService.deleteFriend(firstUser.getId(), secondUser.getId());
+        eventWriteBehindQueue.flush();
+        Thread.sleep(100);
+
+        assertEquals(result.getResponse().getContentAsString(), body);
+    }
+
+    @Test
+    public void rejectUnknownUser() throws Exception {
+        mockMvc.perform(get("/users/{id}/feed/stream", 100))
+            .andExpect(status().isNotFound());
+    }
+
+    private String awaitEvent(MvcResult result, int eventId) throws Exception {
+        for (int attempt = 0; attempt < 50 && !containsEvent(result.getResponse().getContentAsString(), eventId);
+             attempt++) {
+            Thread.sleep(20);
+        }
+
+        return result.getResponse().getContentAsString();
+    }
+
+    private static boolean containsEvent(String body, int eventId) {
+        int start = body.indexOf("id:" + eventId + "\n");
+
+        return start >= 0 && body.indexOf("\n\n", start) >= 0;
+    }
+}
@@ -0,0 +1,89 @@
+package storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.films.export-chunk-size=2")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FilmExportTest {
+
+    private final FilmStorage filmStorage;
+    private final ObjectMapper objectMapper;
+    private final MockMvc mockMvc;
+
+    @BeforeEach
+    public void addFilms() {
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .genres(List.of(new Genre(1, null), new Genre(2, null)))
+            .build();
+
+        for (int i = 0; i < 5; i++) {
+            filmStorage.createFilm(film.toBuilder().name("Фильм " + i).build());
+        }
+    }
+
+    @Test
+    public void streamFilmsAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult dispatched = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(
+                MediaType.parseMediaType(dispatched.getResponse().getContentType())));
+
+        String body = dispatched.getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertTrue(body.endsWith("\n"));
+
+        String[] lines = body.split("\n");
+
+        assertEquals(lines.length, 5);
+
+        for (int i = 0; i < lines.length; i++) {
+            Film film = objectMapper.readValue(lines[i], Film.class);
+
+            assertEquals(film.getId(), i + 1);
+            assertEquals(film.getName(), "Фильм " + i);
+            assertEquals(film.getGenres().size(), 2);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmHydrator;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FilmHydratorTest {
+
+    private final FilmStorage filmStorage;
+    private final FilmHydrator filmHydrator;
+    private final DirectorStorage directorStorage;
+    private Director firstDirector;
+    private Director secondDirector;
+    private Film linkedFilm;
+    private Film plainFilm;
+
+    @BeforeEach
+    public void addFilms() {
+        firstDirector = directorStorage.createDirector(new Director("Первый", 0));
+        secondDirector = directorStorage.createDirector(new Director("Второй", 0));
+
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(3, null))
+            .build();
+
+        linkedFilm = filmStorage.createFilm(film.toBuilder()
+            .genres(List.of(new Genre(3, null), new Genre(1, null), new Genre(2, null)))
+            .directors(List.of(secondDirector, firstDirector))
+            .build());
+        plainFilm = filmStorage.createFilm(film.toBuilder()
+            .mpa(new Mpa(1, null))
+            .genres(List.of())
+            .build());
+    }
+
+    @Test
+    public void foldJoinedRows() {
+        List<Film> films = new ArrayList<>(filmStorage.getAllFilms());
+
+        assertEquals(films.stream().map(Film::getId).collect(Collectors.toList()),
+                List.of(linkedFilm.getId(), plainFilm.getId()));
+
+        Film film = films.get(0);
+
+        assertEquals(film.getMpa().getName(), "PG-13");
+        assertEquals(film.getGenres().stream().map(Genre::getId).collect(Collectors.toList()), List.of(1, 2, 3));
+        assertEquals(new ArrayList<>(film.getGenres()).get(0).getName(), "Комедия");
+        assertEquals(film.getDirectors(), List.of(firstDirector, secondDirector));
+
+        assertEquals(films.get(1).getMpa().getName(), "G");
+        assertEquals(films.get(1).getGenres().size(), 0);
+        assertEquals(films.get(1).getDirectors().size(), 0);
+    }
+
+    @Test
+    public void matchCreatedAndUpdatedFilms() {
+        assertEquals(linkedFilm, filmStorage.getFilmById(linkedFilm.getId()));
+
+        Film updatedFilm = filmStorage.updateFilm(linkedFilm.toBuilder()
+            .mpa(new Mpa(2, null))
+            .genres(List.of(new Genre(4, null), new Genre(2, null)))
+            .directors(List.of(secondDirector))
+            .build());
+
+        assertEquals(updatedFilm, filmStorage.getFilmById(linkedFilm.getId()));
+        assertEquals(updatedFilm.getGenres().stream().map(Genre::getId).collect(Collectors.toList()), List.of(2, 4));
+    }
+
+    @Test
+    public void keepFilmsOrder() {
+        List<Film> films = filmHydrator.query("select * from films", "f.id desc");
+
+        assertEquals(films.stream().map(Film::getId).collect(Collectors.toList()),
+                List.of(plainFilm.getId(), linkedFilm.getId()));
+        assertEquals(films.get(1).getGenres().size(), 3);
+        assertEquals(films.get(1).getDirectors().size(), 2);
+    }
+}
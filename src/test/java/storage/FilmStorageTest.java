@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.constants.SearchBy;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -17,6 +18,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,7 +26,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 @SpringBootTest(classes = FilmorateApplication.class)
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class FilmStorageTest {
 
     private final FilmStorage filmStorage;
@@ -100,4 +102,41 @@ public class FilmStorageTest {
         assertEquals(updatedFilm.getMpa().getId(), newFilm.getMpa().getId());
         assertEquals(updatedFilm.getMpa().getName(), "G");
     }
+
+    @Test
+    public void updateFilmLinks() {
+        Film updatedFilm = filmStorage.updateFilm(newFilm.toBuilder()
+            .mpa(new Mpa(2, null))
+            .genres(List.of(new Genre(2, null), new Genre(1, null), new Genre(2, null)))
+            .build());
+
+        assertEquals(updatedFilm.getMpa().getName(), "PG");
+        assertEquals(updatedFilm.getGenres().size(), 2);
+        assertEquals(new ArrayList<>(updatedFilm.getGenres()).get(1).getName(), "Драма");
+
+        Film filmWithoutGenres = filmStorage.updateFilm(updatedFilm.toBuilder().genres(List.of()).build());
+
+        assertEquals(filmWithoutGenres.getGenres().size(), 0);
+    }
+
+    @Test
+    public void getPopularFilmsByGenreAndYear() {
+        filmStorage.createFilm(film.toBuilder().releaseDate(LocalDate.of(2000, 1, 1)).build());
+
+        int year = newFilm.getReleaseDate().getYear();
+
+        assertEquals(filmStorage.getPopularFilms(10, 1, year).size(), 1);
+        assertEquals(filmStorage.getPopularFilms(10, null, 2000).size(), 1);
+        assertEquals(filmStorage.getPopularFilms(10, 2, null).size(), 0);
+        assertEquals(filmStorage.getPopularFilms(10, null, null).size(), 2);
+    }
+
+    @Test
+    public void searchTreatsWildcardsLiterally() {
+        filmStorage.createFilm(film.toBuilder().name("100% фильм").build());
+
+        assertEquals(filmStorage.search("ФИЛЬМ", Set.of(SearchBy.title)).size(), 2);
+        assertEquals(filmStorage.search("0%", Set.of(SearchBy.title, SearchBy.director)).size(), 1);
+        assertEquals(filmStorage.search("_", Set.of(SearchBy.title)).size(), 0);
+    }
 }
@@ -0,0 +1,83 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.friends.suggestions.max-fan-out=3")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FriendSuggestionServiceTest {
+
+    private final UserService userService;
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    public void addUsers() {
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        for (int i = 0; i < 6; i++) {
+            userIds.add(userService.createUser(user.toBuilder().login("login" + i).build()).getId());
+        }
+
+        addFriends(0, 1, 2);
+        addFriends(1, 3, 4);
+        addFriends(2, 3);
+    }
+
+    @Test
+    public void rankByMutualFriends() {
+        assertEquals(getSuggestions(0, 10), List.of(3, 4));
+        assertEquals(getSuggestions(0, 1), List.of(3));
+    }
+
+    @Test
+    public void invalidateOnFriendshipChange() {
+        assertEquals(getSuggestions(0, 10), List.of(3, 4));
+
+        addFriends(0, 3);
+        addFriends(2, 5);
+
+        assertEquals(getSuggestions(0, 10), List.of(4, 5));
+    }
+
+    @Test
+    public void skipCelebrityFanOut() {
+        addFriends(1, 0, 2, 5);
+
+        assertEquals(getSuggestions(0, 10), List.of(3));
+    }
+
+    private void addFriends(int user, int... friends) {
+        for (int friend : friends) {
+            userService.addFriend(userIds.get(user), userIds.get(friend));
+        }
+    }
+
+    private List<Integer> getSuggestions(int user, int limit) {
+        return userService.getFriendSuggestions(userIds.get(user), limit).stream()
+                .map(suggested -> userIds.indexOf(suggested.getId()))
+                .collect(Collectors.toList());
+    }
+}
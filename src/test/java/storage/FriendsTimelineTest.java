@@ -0,0 +1,110 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.EventService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.event.EventWriteBehindQueue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.timeline.fan-out-limit=1")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FriendsTimelineTest {
+
+    private final UserService userService;
+    private final EventService eventService;
+    private final EventWriteBehindQueue eventWriteBehindQueue;
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    public void addUsers() {
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        for (int i = 0; i < 4; i++) {
+            userIds.add(userService.createUser(user.toBuilder().login("login" + i).build()).getId());
+        }
+
+        addFriend(0, 1);
+        addFriend(0, 2);
+        addFriend(3, 2);
+    }
+
+    @Test
+    public void mergeFannedOutAndPulledEvents() {
+        assertEquals(getAuthors(0, 10), List.of());
+
+        addFriend(1, 3);
+        addFriend(2, 3);
+        addFriend(1, 0);
+
+        assertEquals(getAuthors(0, 10), List.of(1, 2, 1));
+        assertEquals(getAuthors(0, 2), List.of(2, 1));
+        assertEquals(getAuthors(3, 10), List.of(2));
+    }
+
+    @Test
+    public void followOnlyCurrentFriends() {
+        addFriend(1, 3);
+        addFriend(2, 3);
+
+        assertEquals(getAuthors(0, 10), List.of(1, 2));
+
+        userService.deleteFriend(userIds.get(0), userIds.get(1));
+
+        assertEquals(getAuthors(0, 10), List.of(2));
+
+        addFriend(0, 1);
+
+        assertEquals(getAuthors(0, 10), List.of(1, 2));
+    }
+
+    @Test
+    public void keepAuthorEventsAcrossFanOutLimit() {
+        assertEquals(getAuthors(0, 10), List.of());
+
+        addFriend(1, 3);
+        addFriend(3, 1);
+
+        assertEquals(getAuthors(0, 10), List.of(1));
+
+        addFriend(1, 2);
+        userService.deleteFriend(userIds.get(3), userIds.get(1));
+
+        assertEquals(getAuthors(0, 10), List.of(1, 1));
+    }
+
+    private void addFriend(int user, int friend) {
+        userService.addFriend(userIds.get(user), userIds.get(friend));
+    }
+
+    private List<Integer> getAuthors(int user, int limit) {
+        eventWriteBehindQueue.flush();
+
+        return eventService.getTimeline(userIds.get(user), limit).stream()
+            .map(Event::getUserId)
+            .map(userIds::indexOf)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FriendshipGraphTest {
+
+    private final FriendshipGraph friendshipGraph;
+    private final FriendshipStorage friendshipStorage;
+    private final UserStorage userStorage;
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    public void addUsers() {
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        for (int i = 0; i < 4; i++) {
+            userIds.add(userStorage.createUser(user.toBuilder().login("login" + i).build()).getId());
+        }
+    }
+
+    @Test
+    public void keepFriendsAndFollowers() {
+        friendshipStorage.addFriend(userIds.get(0), userIds.get(2));
+        friendshipStorage.addFriend(userIds.get(0), userIds.get(1));
+        friendshipStorage.addFriend(userIds.get(3), userIds.get(1));
+
+        assertArrayEquals(new int[]{userIds.get(1), userIds.get(2)}, friendshipGraph.getFriendIds(userIds.get(0)).get());
+        assertArrayEquals(new int[]{userIds.get(0), userIds.get(3)},
+                friendshipGraph.getFollowerIds(userIds.get(1)).get());
+        assertArrayEquals(new int[]{userIds.get(1)},
+                friendshipGraph.getCommonFriendIds(userIds.get(0), userIds.get(3)).get());
+
+        friendshipStorage.deleteFriend(userIds.get(0), userIds.get(1));
+        friendshipGraph.removeUser(userIds.get(3));
+
+        assertArrayEquals(new int[]{userIds.get(2)}, friendshipGraph.getFriendIds(userIds.get(0)).get());
+        assertArrayEquals(new int[0], friendshipGraph.getFollowerIds(userIds.get(1)).get());
+    }
+
+    @Test
+    public void getUsersByIds() {
+        List<User> users = userStorage.getUsersByIds(List.of(userIds.get(2), userIds.get(0)));
+
+        assertEquals(users.stream().map(User::getId).collect(Collectors.toList()),
+                List.of(userIds.get(0), userIds.get(2)));
+    }
+}
@@ -0,0 +1,103 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class LikeMatrixTest {
+
+    private final LikeMatrix likeMatrix;
+    private final LikeService likeService;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final List<Integer> filmIds = new ArrayList<>();
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    public void addFilmsAndUsers() {
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .build();
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        for (int i = 0; i < 4; i++) {
+            filmIds.add(filmStorage.createFilm(film.toBuilder().build()).getId());
+            userIds.add(userStorage.createUser(user.toBuilder().login("login" + i).build()).getId());
+        }
+    }
+
+    @Test
+    public void recommendFilmsOfMostSimilarUsers() {
+        like(0, 0, 1);
+        like(1, 0, 1, 2);
+        like(2, 0, 3);
+
+        assertEquals(Optional.of(List.of(filmIds.get(2), filmIds.get(3))),
+                likeMatrix.getRecommendedFilmIds(userIds.get(0), 10, 10));
+        assertEquals(Optional.of(List.of(filmIds.get(2))),
+                likeMatrix.getRecommendedFilmIds(userIds.get(0), 1, 10));
+        assertEquals(Optional.of(List.of()), likeMatrix.getRecommendedFilmIds(userIds.get(3), 10, 10));
+    }
+
+    @Test
+    public void forgetRemovedLikesAndFilms() {
+        like(0, 0);
+        like(1, 0, 1, 2);
+
+        likeService.deleteLikeFromFilm(filmIds.get(1), userIds.get(1));
+        likeMatrix.removeFilm(filmIds.get(2));
+
+        assertEquals(Optional.of(List.of()), likeMatrix.getRecommendedFilmIds(userIds.get(0), 10, 10));
+    }
+
+    @Test
+    public void intersectLikesOrderedByPopularity() {
+        like(0, 0, 1, 2);
+        like(1, 1, 2, 3);
+        like(2, 2);
+
+        assertEquals(Optional.of(List.of(filmIds.get(2), filmIds.get(1))),
+                likeMatrix.getCommonFilmIds(userIds.get(0), userIds.get(1)));
+        assertEquals(Optional.of(List.of()), likeMatrix.getCommonFilmIds(userIds.get(0), userIds.get(3)));
+    }
+
+    private void like(int user, int... films) {
+        for (int film : films) {
+            likeService.addLikeToFilm(filmIds.get(film), userIds.get(user));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class LikeStorageTest {
+
+    private final LikeStorage likeStorage;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private Film firstFilm;
+    private Film secondFilm;
+    private User user;
+    private User otherUser;
+
+    @BeforeEach
+    public void addFilmsAndUsers() {
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .build();
+        User newUser = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        firstFilm = filmStorage.createFilm(film.toBuilder().build());
+        secondFilm = filmStorage.createFilm(film.toBuilder().name("Другой фильм").build());
+        user = userStorage.createUser(newUser.toBuilder().build());
+        otherUser = userStorage.createUser(newUser.toBuilder().login("other").build());
+    }
+
+    @Test
+    public void addLikeToFilm() {
+        likeStorage.addLikeToFilm(secondFilm.getId(), user.getId());
+        likeStorage.addLikeToFilm(secondFilm.getId(), user.getId());
+
+        assertEquals(1, getLikesCount(secondFilm.getId()));
+        assertEquals(0, getLikesCount(firstFilm.getId()));
+
+        List<Film> popular = new ArrayList<>(filmStorage.getPopularFilms(10, null, null));
+
+        assertEquals(2, popular.size());
+        assertEquals(secondFilm.getId(), popular.get(0).getId());
+    }
+
+    @Test
+    public void deleteLikeFromFilm() {
+        likeStorage.addLikeToFilm(firstFilm.getId(), user.getId());
+        likeStorage.deleteLikeFromFilm(firstFilm.getId(), user.getId());
+        likeStorage.deleteLikeFromFilm(firstFilm.getId(), user.getId());
+
+        assertEquals(0, getLikesCount(firstFilm.getId()));
+    }
+
+    @Test
+    public void deleteUserWithLikes() {
+        likeStorage.addLikeToFilm(firstFilm.getId(), user.getId());
+        likeStorage.addLikeToFilm(firstFilm.getId(), otherUser.getId());
+
+        userStorage.deleteUserById(user.getId());
+
+        assertEquals(1, getLikesCount(firstFilm.getId()));
+    }
+
+    @Test
+    public void reconcileLikeCounters() {
+        jdbcTemplate.update("insert into likes (film_id, user_id) values (?, ?)", firstFilm.getId(), user.getId());
+
+        assertEquals(1, likeStorage.reconcileLikeCounters());
+        assertEquals(1, getLikesCount(firstFilm.getId()));
+        assertEquals(0, likeStorage.reconcileLikeCounters());
+    }
+
+    private int getLikesCount(int filmId) {
+        Integer count = jdbcTemplate.queryForObject("select likes_count from films where id = ?", Integer.class, filmId);
+
+        return count == null ? 0 : count;
+    }
+}
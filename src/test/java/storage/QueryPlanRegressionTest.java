@@ -0,0 +1,485 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.constants.SearchBy;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.SortBy;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.EventService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationPrecomputeJob;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewCursor;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewRatingStorage;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewUsefulBuffer;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Выполняет EXPLAIN для каждого запроса, отправленного из пакета storage, и падает, если запрос читает
+ * таблицу полным сканированием или сортирует выборку с LIMIT вместо чтения индекса по порядку. Запросы,
+ * которым это нужно по смыслу, перечислены в ALLOWED_SCANS и ALLOWED_SORTS. Каждая SQL-константа пакета
+ * storage и каждая форма собираемых запросов из REQUIRED_SHAPES должны выполниться в нагрузке.
+ */
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@Import(QueryPlanRegressionTest.CaptureConfig.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class QueryPlanRegressionTest {
+
+    private static final String STORAGE_PACKAGE = "ru.yandex.practicum.filmorate.storage.";
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.\\w+\\.tableScan");
+    private static final Pattern ORDER_WITH_LIMIT = Pattern.compile("order by .* (limit|fetch first) ");
+    private static final String INDEX_SORTED = "/* index sorted */";
+    private static final Pattern SQL_STATEMENT = Pattern.compile("^(select|insert|update|delete|merge) ");
+    private static final Map<String, List<Object>> CAPTURED = new ConcurrentHashMap<>();
+    private static final List<Pattern> ALLOWED_SCANS = List.of(
+        // справочники и загрузка индексов в память при старте читают таблицы целиком
+        Pattern.compile("^select \\* from (genres|mpas)$"),
+        Pattern.compile("^select director_id, name from directors$"),
+        Pattern.compile("^select id, name from films$"),
+        Pattern.compile("^select fd\\.director_id, f\\.id, f\\.release_date, f\\.likes_count from film_directors fd"),
+        // выгрузка всех фильмов
+        Pattern.compile("from \\(select \\* from films\\) f "),
+        // запасной поиск по подстроке, пока не загружен триграммный индекс
+        Pattern.compile("like \\? escape"),
+        // одна строка на ночной запуск
+        Pattern.compile("from recommendation_runs where finished_at is null")
+    );
+
+    private static final List<Pattern> ALLOWED_SORTS = List.of(
+        // лента друзей собирается по нескольким авторам, порядок по event_id общий для всех
+        Pattern.compile("from feed where user_id = any\\(\\?\\) order by event_id desc limit"),
+        // популярные фильмы жанра или года: выборка берётся по индексу фильтра и сортируется по лайкам
+        Pattern.compile("where f\\.id in \\(select film_id from film_genres where genre_id = \\?\\)"),
+        Pattern.compile("where f\\.release_date >= \\? and f\\.release_date < \\? order by f\\.likes_count"),
+        // ближайший по лайкам пользователь: порядок по числу общих лайков считается после группировки
+        Pattern.compile("group by l\\.user_id order by count\\(l\\.film_id\\) desc limit"),
+        // одна строка на ночной запуск
+        Pattern.compile("from recommendation_runs where finished_at is null")
+    );
+    private static final List<Pattern> REQUIRED_SHAPES = List.of(
+        Pattern.compile("from films f order by f\\.likes_count desc, f\\.id limit"),
+        Pattern.compile("from films f where f\\.id in \\(select film_id from film_genres where genre_id = \\?\\) " +
+            "order by"),
+        Pattern.compile("from films f where f\\.id in \\(select film_id from film_genres where genre_id = \\?\\) " +
+            "and f\\.release_date >= \\?"),
+        Pattern.compile("from films f where f\\.release_date >= \\?"),
+        Pattern.compile("from films where id > \\? order by id limit"),
+        Pattern.compile("where lower\\(films\\.name\\) like \\? escape '\\\\'$"),
+        Pattern.compile("where lower\\(directors\\.name\\) like \\? escape '\\\\'$"),
+        Pattern.compile("where lower\\(directors\\.name\\) like \\? escape '\\\\' or lower\\(films\\.name\\)"),
+        Pattern.compile("from reviews order by useful desc, review_id limit"),
+        Pattern.compile("from reviews where useful <= \\? and .* order by useful desc, review_id limit"),
+        Pattern.compile("reviews_film_useful_idx\\) where film_id = \\? order by film_id, useful desc, review_id limit"),
+        Pattern.compile("reviews_film_useful_idx\\) where film_id = \\? and useful <= \\? and .* order by film_id"),
+        Pattern.compile("where user_id = \\? and event_id < \\? order by user_id, event_id desc limit"),
+        Pattern.compile("where user_id = \\? and event_id > \\? order by user_id, event_id limit")
+    );
+
+    private final DataSource dataSource;
+    private final UserService userService;
+    private final FilmService filmService;
+    private final DirectorService directorService;
+    private final ReviewService reviewService;
+    private final EventService eventService;
+    private final RecommendationPrecomputeJob recommendationPrecomputeJob;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FriendshipStorage friendshipStorage;
+    private final LikeStorage likeStorage;
+    private final EventStorage eventStorage;
+    private final ReviewStorage reviewStorage;
+    private final ReviewRatingStorage reviewRatingStorage;
+    private final ReviewUsefulBuffer reviewUsefulBuffer;
+
+    @Test
+    public void storageQueriesUseIndexes() throws Exception {
+        runWorkload();
+        assertFalse(CAPTURED.isEmpty());
+
+        Map<String, String> violations = new TreeMap<>();
+
+        try (Connection connection = unwrap(dataSource).getConnection()) {
+            for (Map.Entry<String, List<Object>> entry : CAPTURED.entrySet()) {
+                String sql = entry.getKey();
+
+                if (!isExplainable(sql)) {
+                    continue;
+                }
+
+                String plan = explain(connection, sql, entry.getValue());
+
+                if (TABLE_SCAN.matcher(plan).find() && !matchesAny(ALLOWED_SCANS, sql)) {
+                    violations.put(normalize(sql), plan);
+                }
+
+                if (ORDER_WITH_LIMIT.matcher(normalize(sql) + " ").find() && !plan.contains(INDEX_SORTED)
+                        && !matchesAny(ALLOWED_SORTS, sql)) {
+                    violations.put(normalize(sql), plan);
+                }
+            }
+        }
+
+        assertTrue(violations.isEmpty(), "Запросы читают таблицы полным сканированием или сортируют выборку:\n" +
+                String.join("\n", violations.keySet()));
+    }
+
+    @Test
+    public void workloadCoversStorageStatements() throws Exception {
+        runWorkload();
+
+        Set<String> captured = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+
+        CAPTURED.keySet().forEach(sql -> captured.add(normalize(sql)));
+
+        for (String statement : getStorageStatements()) {
+            if (captured.stream().noneMatch(sql -> sql.contains(statement))) {
+                missing.add(statement);
+            }
+        }
+
+        for (Pattern shape : REQUIRED_SHAPES) {
+            if (captured.stream().noneMatch(sql -> shape.matcher(sql).find())) {
+                missing.add(shape.pattern());
+            }
+        }
+
+        assertTrue(missing.isEmpty(), "Нагрузка не выполняет запросы: " + missing);
+    }
+
+    @Test
+    public void reviewPagesReadIndexInOrder() throws Exception {
+        runWorkload();
+
+        ReviewCursor cursor = new ReviewCursor(0, 1);
+
+        reviewStorage.getPage(1, cursor, 10);
+        reviewStorage.getPage(null, cursor, 10);
+
+        try (Connection connection = unwrap(dataSource).getConnection()) {
+            String filmPlan = explainCaptured(connection, "where film_id = ? and useful <= ?");
+            String allPlan = explainCaptured(connection, "from reviews where useful <= ?");
+
+            assertTrue(filmPlan.contains("REVIEWS_FILM_USEFUL_IDX: FILM_ID = ?1 AND USEFUL <= ?2"), filmPlan);
+            assertTrue(filmPlan.contains("/* index sorted */"), filmPlan);
+            assertTrue(allPlan.contains("REVIEWS_USEFUL_IDX: USEFUL <= ?1"), allPlan);
+            assertTrue(allPlan.contains("/* index sorted */"), allPlan);
+        }
+    }
+
+    private void runWorkload() {
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+        User first = userService.createUser(user);
+        User second = userService.createUser(user.toBuilder().login("second").build());
+        User third = userService.createUser(user.toBuilder().login("third").build());
+        Director director = directorService.createDirector(new Director("Режиссёр", 0));
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.of(2000, 1, 1))
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .genres(List.of(new Genre(1, null)))
+            .directors(List.of(director))
+            .build();
+        Film firstFilm = filmService.createFilm(film);
+        Film secondFilm = filmService.createFilm(film.toBuilder().name("Другой").build());
+
+        userService.addFriend(first.getId(), second.getId());
+        userService.addFriend(second.getId(), third.getId());
+        userService.addFriend(first.getId(), third.getId());
+        userService.getUserFriends(first.getId());
+        userService.getCommonFriends(first.getId(), second.getId());
+        userService.getFriendSuggestions(first.getId(), 10);
+
+        filmService.addLikeToFilm(firstFilm.getId(), first.getId());
+        filmService.addLikeToFilm(firstFilm.getId(), second.getId());
+        filmService.addLikeToFilm(secondFilm.getId(), second.getId());
+        filmService.updateFilm(firstFilm.toBuilder().genres(List.of(new Genre(2, null))).build());
+        filmService.getFilmById(firstFilm.getId());
+        filmService.getFilms(0, 10);
+        filmService.getFilms(firstFilm.getId(), 10);
+        filmService.streamFilms(films -> { });
+        filmService.getPopularFilms(10, 1, 2000);
+        filmService.getCommonFilms(first.getId(), second.getId());
+        filmService.getRecommendations(first.getId());
+        filmService.getDirectorFilms(director.getId(), SortBy.YEAR);
+        filmService.search("фил", new SearchBy[]{SearchBy.title, SearchBy.director});
+
+        filmStorage.getPopularFilms(10, null, null);
+        filmStorage.getPopularFilms(10, 1, 2000);
+        filmStorage.getPopularFilms(10, 1, null);
+        filmStorage.getPopularFilms(10, null, 2000);
+        filmStorage.search("фил", Set.of(SearchBy.title));
+        filmStorage.search("фил", Set.of(SearchBy.director));
+        filmStorage.getCommonFilms(first.getId(), second.getId());
+        filmStorage.getDirectorFilms(director.getId(), SortBy.YEAR);
+        filmStorage.getDirectorFilms(director.getId(), SortBy.LIKES);
+        filmStorage.getUserRecommendations(first.getId());
+        filmStorage.search("фил", Set.of(SearchBy.title, SearchBy.director));
+        userStorage.getUserFriends(first.getId());
+        userStorage.getCommonFriends(first.getId(), second.getId());
+        userStorage.getUsersPage(0, 10);
+        friendshipStorage.getFriendIds(first.getId());
+        friendshipStorage.getFollowerIds(third.getId());
+        likeStorage.getUserLikedFilmIds(first.getId());
+        recommendationPrecomputeJob.precompute();
+
+        Review review = reviewService.add(new Review(null, "Отзыв", true, first.getId(), firstFilm.getId(), 0));
+
+        reviewService.addLikeToFilmReview(review.getReviewId(), second.getId());
+        reviewService.addDislikeToFilmReview(review.getReviewId(), second.getId());
+        reviewService.deleteDislikeFromFilmReview(review.getReviewId(), second.getId());
+        reviewService.getAll(firstFilm.getId(), 10, null);
+        reviewService.getAll(-1, 10, null);
+        reviewService.getAll(firstFilm.getId(), 10, ReviewCursor.of(review));
+        reviewService.getAll(-1, 10, ReviewCursor.of(review));
+        reviewService.update(new Review(review.getReviewId(), "Новый отзыв", false, first.getId(), firstFilm.getId(), 0));
+        reviewStorage.isExists(review.getReviewId());
+        reviewUsefulBuffer.flush();
+        reviewRatingStorage.reconcileUsefulScores();
+
+        eventService.getFeed(first.getId(), null, 10);
+        eventService.getFeed(first.getId(), eventService.getFeed(first.getId()).get(1).getEventId(), 10);
+        eventService.getTimeline(first.getId(), 10);
+        eventStorage.getFeedAfter(first.getId(), 0, 10);
+
+        filmService.deleteLikeFromFilm(secondFilm.getId(), second.getId());
+        userService.deleteFriend(first.getId(), third.getId());
+        reviewService.delete(review.getReviewId());
+        filmService.deleteFilmById(secondFilm.getId());
+        directorService.deleteDirector(director.getId());
+        userService.deleteUserById(third.getId());
+    }
+
+    /**
+     * SQL-константы классов пакета storage. Для шаблонов с %s проверяется часть до подстановки.
+     */
+    private static List<String> getStorageStatements() throws Exception {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        MetadataReaderFactory readerFactory = new CachingMetadataReaderFactory(resolver);
+        List<String> statements = new ArrayList<>();
+
+        for (Resource resource : resolver.getResources("classpath*:" + STORAGE_PACKAGE.replace('.', '/') +
+                "**/*.class")) {
+            Class<?> type = Class.forName(readerFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || !Modifier.isFinal(field.getModifiers())
+                        || !String.class.equals(field.getType())) {
+                    continue;
+                }
+
+                field.setAccessible(true);
+
+                String statement = normalize(((String) field.get(null)).split("%s")[0]);
+
+                if (SQL_STATEMENT.matcher(statement).find()) {
+                    statements.add(statement);
+                }
+            }
+        }
+
+        return statements;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String sql) {
+        return patterns.stream().anyMatch(pattern -> pattern.matcher(normalize(sql)).find());
+    }
+
+    private static String explainCaptured(Connection connection, String fragment) throws Exception {
+        for (Map.Entry<String, List<Object>> entry : CAPTURED.entrySet()) {
+            if (normalize(entry.getKey()).contains(fragment)) {
+                return explain(connection, entry.getKey(), entry.getValue()).replaceAll("\\s+", " ");
+            }
+        }
+
+        throw new AssertionError("Запрос не выполнялся: " + fragment);
+    }
+
+    private static String explain(Connection connection, String sql, List<Object> params) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+
+                return plan.toString();
+            }
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        String normalized = normalize(sql);
+
+        return normalized.startsWith("select") || normalized.startsWith("update") || normalized.startsWith("delete");
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static DataSource unwrap(DataSource dataSource) throws Exception {
+        return Proxy.isProxyClass(dataSource.getClass()) ? dataSource.unwrap(DataSource.class) : dataSource;
+    }
+
+    private static boolean isCalledFromStorage() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            if (element.getClassName().startsWith(STORAGE_PACKAGE)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryPlanRegressionTest.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static DataSource capturing(DataSource dataSource) {
+        return proxy(DataSource.class, (p, method, args) -> {
+            if (method.getName().equals("unwrap") && DataSource.class.equals(args[0])) {
+                return dataSource;
+            }
+
+            Object result = invoke(dataSource, method, args);
+
+            return result instanceof Connection ? capturing((Connection) result) : result;
+        });
+    }
+
+    private static Connection capturing(Connection connection) {
+        return proxy(Connection.class, (p, method, args) -> {
+            Object result = invoke(connection, method, args);
+
+            if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return capturing((PreparedStatement) result, (String) args[0]);
+            }
+
+            if (result instanceof Statement && method.getName().equals("createStatement")) {
+                return capturing((Statement) result);
+            }
+
+            return result;
+        });
+    }
+
+    private static PreparedStatement capturing(PreparedStatement statement, String sql) {
+        Map<Integer, Object> params = new TreeMap<>();
+
+        return proxy(PreparedStatement.class, (p, method, args) -> {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            }
+            else if ((name.startsWith("execute") || name.equals("addBatch")) && isCalledFromStorage()) {
+                CAPTURED.putIfAbsent(sql, new ArrayList<>(params.values()));
+            }
+
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Statement capturing(Statement statement) {
+        return proxy(Statement.class, (p, method, args) -> {
+            if (method.getName().startsWith("execute") && args != null && args.length > 0
+                    && args[0] instanceof String && isCalledFromStorage()) {
+                CAPTURED.putIfAbsent((String) args[0], List.of());
+            }
+
+            return invoke(statement, method, args);
+        });
+    }
+
+    @TestConfiguration
+    static class CaptureConfig {
+
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? capturing((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+}
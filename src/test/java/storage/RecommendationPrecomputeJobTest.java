@@ -0,0 +1,121 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.RecommendationPrecomputeJob;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationRange;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class RecommendationPrecomputeJobTest {
+
+    private final RecommendationPrecomputeJob recommendationPrecomputeJob;
+    private final RecommendationStorage recommendationStorage;
+    private final LikeService likeService;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final List<Integer> filmIds = new ArrayList<>();
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    public void addLikes() {
+        Film film = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .build();
+        User user = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+
+        for (int i = 0; i < 3; i++) {
+            filmIds.add(filmStorage.createFilm(film.toBuilder().build()).getId());
+            userIds.add(userStorage.createUser(user.toBuilder().login("login" + i).build()).getId());
+        }
+
+        likeService.addLikeToFilm(filmIds.get(0), userIds.get(0));
+        likeService.addLikeToFilm(filmIds.get(0), userIds.get(1));
+        likeService.addLikeToFilm(filmIds.get(1), userIds.get(1));
+        likeService.addLikeToFilm(filmIds.get(2), userIds.get(1));
+    }
+
+    @Test
+    public void precomputeRecommendations() {
+        recommendationPrecomputeJob.precompute();
+
+        assertEquals(recommendationStorage.getRecommendedFilmIds(userIds.get(0)),
+                List.of(filmIds.get(1), filmIds.get(2)));
+        assertEquals(recommendationStorage.getRecommendedFilmIds(userIds.get(1)), List.of());
+        assertEquals(recommendationStorage.getUnfinishedRunId(), Optional.empty());
+
+        likeService.addLikeToFilm(filmIds.get(1), userIds.get(0));
+
+        assertEquals(recommendationStorage.getRecommendedFilmIds(userIds.get(0)), List.of());
+    }
+
+    @Test
+    public void resumeUnfinishedRun() {
+        int runId = recommendationStorage.createRun(1);
+        RecommendationRange firstRange = recommendationStorage.getPendingRanges(runId).get(0);
+
+        recommendationStorage.completeRange(runId, firstRange, Instant.now(), Map.of());
+
+        assertEquals(recommendationStorage.getPendingRanges(runId).size(), 1);
+
+        recommendationPrecomputeJob.precompute();
+
+        assertEquals(recommendationStorage.getUnfinishedRunId(), Optional.empty());
+        assertEquals(recommendationStorage.getRecommendedFilmIds(userIds.get(0)), List.of());
+        assertEquals(recommendationStorage.getRangesCount(runId), 2);
+    }
+
+    @Test
+    public void skipUsersInvalidatedDuringRun() throws InterruptedException {
+        int runId = recommendationStorage.createRun(10);
+        RecommendationRange range = recommendationStorage.getPendingRanges(runId).get(0);
+
+        Thread.sleep(10);
+        Instant computedAt = Instant.now();
+        Thread.sleep(10);
+
+        likeService.addLikeToFilm(filmIds.get(1), userIds.get(0));
+
+        recommendationStorage.completeRange(runId, range, computedAt,
+                Map.of(userIds.get(0), List.of(filmIds.get(1), filmIds.get(2)), userIds.get(1), List.of(filmIds.get(0))));
+
+        assertEquals(recommendationStorage.getRecommendedFilmIds(userIds.get(0)), List.of());
+        assertEquals(recommendationStorage.getRecommendedFilmIds(userIds.get(1)), List.of(filmIds.get(0)));
+        assertEquals(recommendationStorage.getPendingRanges(runId).size(), 0);
+    }
+}
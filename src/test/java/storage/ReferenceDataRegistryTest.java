@@ -0,0 +1,60 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReferenceDataRegistryTest {
+
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final FilmStorage filmStorage;
+
+    @Test
+    public void getReferenceData() {
+        assertEquals(referenceDataRegistry.getGenres().size(), 6);
+        assertEquals(referenceDataRegistry.getMpas().size(), 5);
+        assertThat(referenceDataRegistry.getGenre(1)).hasFieldOrPropertyWithValue("name", "Комедия");
+        assertThat(referenceDataRegistry.getMpa(1)).hasFieldOrPropertyWithValue("name", "G");
+        assertNull(referenceDataRegistry.getGenre(999));
+        assertNull(referenceDataRegistry.getMpa(0));
+    }
+
+    @Test
+    public void filmsShareReferenceInstances() {
+        Film film = filmStorage.createFilm(new Film()
+                .toBuilder()
+                .name("Фильм")
+                .description("Интересный")
+                .releaseDate(LocalDate.now())
+                .duration(100)
+                .mpa(new Mpa(1, null))
+                .genres(List.of(new Genre(2, null)))
+                .build());
+
+        Film storedFilm = filmStorage.getFilmById(film.getId());
+
+        assertSame(referenceDataRegistry.getMpa(1), storedFilm.getMpa());
+        assertSame(referenceDataRegistry.getGenre(2), storedFilm.getGenres().iterator().next());
+    }
+}
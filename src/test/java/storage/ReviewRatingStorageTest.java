@@ -0,0 +1,217 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewRatingStorage;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewUsefulBuffer;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.reviews.useful-flush-interval-ms=3600000")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReviewRatingStorageTest {
+
+    private final ReviewRatingStorage reviewRatingStorage;
+    private final ReviewStorage reviewStorage;
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final ReviewUsefulBuffer reviewUsefulBuffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private User user;
+    private User otherUser;
+    private Review review;
+
+    @BeforeEach
+    public void addReview() {
+        User newUser = new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build();
+        Film film = filmStorage.createFilm(new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .genres(List.of())
+            .build());
+
+        user = userStorage.createUser(newUser);
+        otherUser = userStorage.createUser(newUser.toBuilder().login("other").build());
+        review = reviewStorage.add(new Review(null, "Отзыв", true, user.getId(), film.getId(), 0));
+    }
+
+    @Test
+    public void applyVoteDeltas() {
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), user.getId());
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), user.getId());
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), otherUser.getId());
+        assertEquals(getUseful(), 2);
+
+        reviewRatingStorage.addDislikeToFilmReview(review.getReviewId(), user.getId());
+        assertEquals(getUseful(), 0);
+
+        reviewRatingStorage.deleteLikeFromFilmReview(review.getReviewId(), user.getId());
+        assertEquals(getUseful(), 1);
+
+        reviewRatingStorage.deleteDislikeFromFilmReview(review.getReviewId(), user.getId());
+        assertEquals(getUseful(), 1);
+    }
+
+    @Test
+    public void reconcileDrift() {
+        reviewRatingStorage.addDislikeToFilmReview(review.getReviewId(), user.getId());
+        jdbcTemplate.update("update reviews set useful = 10 where review_id = ?", review.getReviewId());
+
+        assertEquals(reviewRatingStorage.reconcileUsefulScores(), 1);
+        assertEquals(getUseful(), -1);
+        assertEquals(reviewRatingStorage.reconcileUsefulScores(), 0);
+    }
+
+    @Test
+    public void reconcileDuringVotes() throws InterruptedException {
+        List<Thread> voters = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            User voter = userStorage.createUser(user.toBuilder().login("voter" + i).build());
+
+            voters.add(new Thread(() -> {
+                for (int vote = 0; vote < 50; vote++) {
+                    if (vote % 2 == 0) {
+                        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), voter.getId());
+                    }
+                    else {
+                        reviewRatingStorage.addDislikeToFilmReview(review.getReviewId(), voter.getId());
+                    }
+                }
+            }));
+        }
+
+        voters.forEach(Thread::start);
+
+        while (voters.stream().anyMatch(Thread::isAlive)) {
+            reviewRatingStorage.reconcileUsefulScores();
+        }
+
+        for (Thread voter : voters) {
+            voter.join();
+        }
+
+        reviewUsefulBuffer.flush();
+
+        assertEquals(reviewRatingStorage.reconcileUsefulScores(), 0);
+        assertEquals(getStoredUseful(), -4);
+    }
+
+    @Test
+    public void keepUsefulOnReviewUpdate() {
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), user.getId());
+        review.setUseful(0);
+        review.setContent("Новый отзыв");
+
+        assertEquals(reviewStorage.update(review).getUseful(), 1);
+    }
+
+    @Test
+    public void combineDeltasUntilFlush() {
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), user.getId());
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), otherUser.getId());
+        reviewRatingStorage.addDislikeToFilmReview(review.getReviewId(), user.getId());
+
+        assertEquals(getStoredUseful(), 0);
+        assertEquals(getUseful(), 0);
+        assertEquals(reviewUsefulBuffer.getPending(review.getReviewId()), 0);
+
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), user.getId());
+
+        assertEquals(getStoredUseful(), 0);
+        assertEquals(getUseful(), 2);
+
+        reviewUsefulBuffer.flush();
+
+        assertEquals(getStoredUseful(), 2);
+        assertEquals(getUseful(), 2);
+    }
+
+    @Test
+    public void voteAndReadDuringFlush() throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Thread rowLock = new Thread(() -> transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("update reviews set content = content where review_id = ?", review.getReviewId());
+            locked.countDown();
+
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), user.getId());
+        rowLock.start();
+        locked.await();
+
+        Thread flush = new Thread(reviewUsefulBuffer::flush);
+
+        flush.start();
+        Thread.sleep(100);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () ->
+                reviewRatingStorage.addLikeToFilmReview(review.getReviewId(), otherUser.getId()));
+        assertEquals(assertTimeoutPreemptively(Duration.ofSeconds(1), this::getUseful), 2);
+
+        release.countDown();
+        rowLock.join();
+        flush.join();
+        reviewUsefulBuffer.flush();
+
+        assertEquals(getStoredUseful(), 2);
+        assertEquals(getUseful(), 2);
+    }
+
+    private int getStoredUseful() {
+        return jdbcTemplate.queryForObject("select useful from reviews where review_id = ?", Integer.class,
+            review.getReviewId());
+    }
+
+    private int getUseful() {
+        return reviewStorage.getById(review.getReviewId()).getUseful();
+    }
+}
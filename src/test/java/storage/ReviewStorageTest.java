@@ -0,0 +1,100 @@
+package storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exception.ReviewValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewCursor;
+import ru.yandex.practicum.filmorate.storage.filmReview.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewRatingStorage;
+import ru.yandex.practicum.filmorate.storage.filmReviewRating.ReviewUsefulBuffer;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReviewStorageTest {
+
+    private final ReviewStorage reviewStorage;
+    private final ReviewRatingStorage reviewRatingStorage;
+    private final ReviewUsefulBuffer reviewUsefulBuffer;
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final List<Integer> reviewIds = new ArrayList<>();
+    private Film film;
+
+    @BeforeEach
+    public void addReviews() {
+        User user = userStorage.createUser(new User()
+            .toBuilder()
+            .name("Игорь")
+            .login("pwned")
+            .birthday(LocalDate.now())
+            .email("igor@what.eng")
+            .build());
+        Film newFilm = new Film()
+            .toBuilder()
+            .name("Фильм")
+            .description("Интересный")
+            .releaseDate(LocalDate.now())
+            .duration(100)
+            .mpa(new Mpa(1, null))
+            .genres(List.of())
+            .build();
+
+        film = filmStorage.createFilm(newFilm);
+        Film otherFilm = filmStorage.createFilm(newFilm.toBuilder().name("Другой").build());
+
+        for (int i = 0; i < 4; i++) {
+            reviewIds.add(reviewStorage.add(new Review(null, "Отзыв", true, user.getId(), film.getId(), 0))
+                .getReviewId());
+        }
+
+        reviewStorage.add(new Review(null, "Отзыв", true, user.getId(), otherFilm.getId(), 0));
+        reviewRatingStorage.addLikeToFilmReview(reviewIds.get(2), user.getId());
+        reviewRatingStorage.addDislikeToFilmReview(reviewIds.get(0), user.getId());
+        reviewUsefulBuffer.flush();
+    }
+
+    @Test
+    public void pageByUsefulAndId() {
+        List<Review> firstPage = reviewStorage.getPage(film.getId(), null, 2);
+
+        assertEquals(getIds(firstPage), List.of(reviewIds.get(2), reviewIds.get(1)));
+
+        ReviewCursor cursor = ReviewCursor.parse(ReviewCursor.of(firstPage.get(1)).toString());
+
+        assertEquals(getIds(reviewStorage.getPage(film.getId(), cursor, 2)), List.of(reviewIds.get(3), reviewIds.get(0)));
+        assertEquals(reviewStorage.getPage(null, null, 10).size(), 5);
+        assertEquals(reviewStorage.getPage(null, cursor, 10).size(), 3);
+    }
+
+    @Test
+    public void rejectMalformedCursor() {
+        assertThrows(ReviewValidationException.class, () -> ReviewCursor.parse("1"));
+        assertThrows(ReviewValidationException.class, () -> ReviewCursor.parse("a:1"));
+    }
+
+    private List<Integer> getIds(List<Review> reviews) {
+        return reviews.stream().map(Review::getReviewId).collect(Collectors.toList());
+    }
+}
@@ -11,7 +11,9 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -65,6 +67,22 @@ public class UserStorageTest {
         assertEquals(users.size(), 2);
     }
 
+    @Test
+    public void getUsersPage() {
+        User first = userStorage.createUser(user);
+        User second = userStorage.createUser(user.toBuilder().build());
+        User third = userStorage.createUser(user.toBuilder().build());
+
+        List<User> firstPage = new ArrayList<>(userStorage.getUsersPage(0, 2));
+        List<User> secondPage = new ArrayList<>(userStorage.getUsersPage(second.getId(), 2));
+
+        assertEquals(2, firstPage.size());
+        assertEquals(first.getId(), firstPage.get(0).getId());
+        assertEquals(second.getId(), firstPage.get(1).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(third.getId(), secondPage.get(0).getId());
+    }
+
     @Test
     public void updateUser() {
         User updatedUser = user.toBuilder().name("Василий").build();